@@ -371,6 +371,15 @@ public abstract class BasePlugin<K extends BaseExtension> implements Plugin<Proj
             extractMcpMappings.setDoesCache(true);
         }
 
+        CompileMappings compileMappings = makeTask(TASK_COMPILE_MAPPINGS, CompileMappings.class);
+        {
+            compileMappings.setMethodsCsv(delayedFile(CSV_METHOD));
+            compileMappings.setFieldsCsv(delayedFile(CSV_FIELD));
+            compileMappings.setParamsCsv(delayedFile(CSV_PARAM));
+            compileMappings.setOutFile(delayedFile(BIN_MAPPINGS));
+            compileMappings.dependsOn(extractMcpMappings);
+        }
+
         GenSrgs genSrgs = makeTask(TASK_GENERATE_SRGS, GenSrgs.class);
         {
             genSrgs.setInSrg(delayedFile(MCP_DATA_SRG));
@@ -385,7 +394,7 @@ public abstract class BasePlugin<K extends BaseExtension> implements Plugin<Proj
             genSrgs.setSrgExc(delayedFile(EXC_SRG));
             genSrgs.setMcpExc(delayedFile(EXC_MCP));
             genSrgs.setDoesCache(true);
-            genSrgs.dependsOn(extractMcpData, extractMcpMappings);
+            genSrgs.dependsOn(extractMcpData, extractMcpMappings, compileMappings);
         }
 
         Delete clearCache = makeTask(TASK_CLEAN_CACHE, Delete.class);
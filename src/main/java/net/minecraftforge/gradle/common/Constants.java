@@ -28,6 +28,7 @@ import com.google.common.io.CharStreams;
 import com.google.common.io.Files;
 import groovy.lang.Closure;
 import net.minecraftforge.gradle.patcher.PatcherExtension;
+import net.minecraftforge.gradle.util.mcp.McpMappings;
 import net.minecraftforge.gradle.util.json.version.OS;
 import org.gradle.api.Project;
 import org.gradle.api.file.FileCollection;
@@ -175,6 +176,7 @@ public class Constants {
     public static final String CSV_METHOD = DIR_MCP_MAPPINGS + "/methods.csv";
     public static final String CSV_FIELD = DIR_MCP_MAPPINGS + "/fields.csv";
     public static final String CSV_PARAM = DIR_MCP_MAPPINGS + "/params.csv";
+    public static final String BIN_MAPPINGS = DIR_MCP_MAPPINGS + "/" + McpMappings.BINARY_NAME;
     public static final String SRG_NOTCH_TO_SRG = DIR_MCP_MAPPINGS + "/srgs/notch-srg.srg";
     public static final String SRG_NOTCH_TO_MCP = DIR_MCP_MAPPINGS + "/srgs/notch-mcp.srg";
     public static final String SRG_SRG_TO_MCP = DIR_MCP_MAPPINGS + "/srgs/srg-mcp.srg";
@@ -194,6 +196,7 @@ public class Constants {
     public static final String TASK_DL_ASSETS = "getAssets";
     public static final String TASK_EXTRACT_MCP = "extractMcpData";
     public static final String TASK_EXTRACT_MAPPINGS = "extractMcpMappings";
+    public static final String TASK_COMPILE_MAPPINGS = "compileMcpMappings";
     public static final String TASK_GENERATE_SRGS = "genSrgs";
     public static final String TASK_CLEAN_CACHE = "cleanCache";
 
@@ -0,0 +1,72 @@
+/*
+ * A Gradle plugin for the creation of Minecraft mods and MinecraftForge plugins.
+ * Copyright (C) 2013 Minecraft Forge
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package net.minecraftforge.gradle.patcher;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.gradle.tooling.GradleConnector;
+import org.gradle.tooling.ProjectConnection;
+
+/**
+ * Tooling API connections for the sub-builds, one per project dir and Gradle install.
+ * They are kept for the length of the build so every task building the same project reuses the daemon,
+ * and closed when the build is done.
+ */
+abstract class SubprojectConnections implements BuildService<BuildServiceParameters.None>, AutoCloseable {
+    static final String NAME = "forgeGradleSubprojectConnections";
+
+    private final Map<String, ProjectConnection> connections = new ConcurrentHashMap<>();
+
+    ProjectConnection get(File projectDir, File gradleHome, File gradleUserHome) {
+        String key = projectDir.getAbsolutePath() + "|" + gradleHome + "|" + gradleUserHome;
+        return connections.computeIfAbsent(key, k -> GradleConnector.newConnector()
+                .useGradleUserHomeDir(gradleUserHome)
+                .useInstallation(gradleHome)
+                .forProjectDirectory(projectDir)
+                .connect());
+    }
+
+    /**
+     * Drops a connection that stopped working, the next build of its project connects again.
+     */
+    void discard(ProjectConnection connection) {
+        if (connections.values().remove(connection))
+            closeQuietly(connection);
+    }
+
+    @Override
+    public void close() {
+        for (ProjectConnection connection : connections.values())
+            closeQuietly(connection);
+        connections.clear();
+    }
+
+    private static void closeQuietly(ProjectConnection connection) {
+        try {
+            connection.close();
+        } catch (RuntimeException ignored) {
+            // the daemon is already gone
+        }
+    }
+}
@@ -21,18 +21,15 @@ package net.minecraftforge.gradle.patcher;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
-import net.minecraftforge.gradle.util.SequencedInputSupplier;
-import net.minecraftforge.srg2source.util.io.FolderSupplier;
-import net.minecraftforge.srg2source.util.io.InputSupplier;
-import net.minecraftforge.srg2source.util.io.ZipInputSupplier;
+import net.minecraftforge.gradle.util.RawZipOutput;
+import net.minecraftforge.gradle.util.ZipIndex;
 
 import org.gradle.api.DefaultTask;
 import org.gradle.api.file.FileCollection;
@@ -44,7 +41,6 @@ import org.gradle.api.tasks.TaskAction;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.Sets;
-import com.google.common.io.ByteStreams;
 
 /**
  * The point of this task is to take 2 input sets, and then build a zip/jar containing the files that exist in the 2nd set, but not the first.
@@ -70,35 +66,54 @@ class TaskExtractNew extends DefaultTask {
     public void doStuff() throws IOException {
         ending = Strings.nullToEmpty(ending);
 
-        InputSupplier cleanSupplier = getSupplier(getCleanSource());
-        InputSupplier dirtySupplier = getSupplier(getDirtySource());
-
-        Set<String> cleanFiles = Sets.newHashSet(cleanSupplier.gatherAll(ending));
+        // only names are needed from the clean side, so jars are read from their central directory alone
+        Set<String> cleanFiles = Sets.newHashSet();
+        for (File clean : getCleanSource()) {
+            if (clean.isDirectory()) {
+                cleanFiles.addAll(listFolder(clean));
+            } else {
+                try (ZipIndex index = new ZipIndex(clean)) {
+                    for (ZipIndex.Entry entry : index.getEntries()) {
+                        if (!entry.isDirectory() && entry.getName().endsWith(ending))
+                            cleanFiles.add(entry.getName());
+                    }
+                }
+            }
+        }
 
         File output = getOutput();
         output.getParentFile().mkdirs();
 
         boolean isClassEnding = false; //TODO: Figure out Abrar's logic for this... ending.equals(".class"); // this is a trigger for custom stuff
 
-        ZipOutputStream zout = new ZipOutputStream(Files.newOutputStream(output.toPath()));
-        for (String path : dirtySupplier.gatherAll(ending)) {
-            //noinspection ConstantValue
-            if (isClassEnding && matchesClass(cleanFiles, path) || cleanFiles.contains(path)) {
-                continue;
+        try (RawZipOutput zout = new RawZipOutput(output)) {
+            for (File dirty : getDirtySource()) {
+                if (dirty.isDirectory()) {
+                    for (String path : listFolder(dirty)) {
+                        //noinspection ConstantValue
+                        if (isClassEnding && matchesClass(cleanFiles, path) || cleanFiles.contains(path) || zout.contains(path)) {
+                            continue;
+                        }
+
+                        File file = new File(dirty, path);
+                        zout.putEntry(path, file.lastModified(), Files.readAllBytes(file.toPath()));
+                    }
+                } else {
+                    // entries from jars are copied without recompressing them
+                    try (ZipIndex index = new ZipIndex(dirty)) {
+                        for (ZipIndex.Entry entry : index.getEntries()) {
+                            String path = entry.getName();
+                            //noinspection ConstantValue
+                            if (entry.isDirectory() || !path.endsWith(ending) || isClassEnding && matchesClass(cleanFiles, path) || cleanFiles.contains(path) || zout.contains(path)) {
+                                continue;
+                            }
+
+                            zout.copy(index, entry);
+                        }
+                    }
+                }
             }
-
-            zout.putNextEntry(new ZipEntry(path));
-
-            InputStream stream = dirtySupplier.getInput(path);
-            ByteStreams.copy(stream, zout);
-            stream.close();
-
-            zout.closeEntry();
         }
-
-        zout.close();
-        cleanSupplier.close();
-        dirtySupplier.close();
     }
 
     private String stripEnding(String path) {
@@ -119,20 +134,25 @@ class TaskExtractNew extends DefaultTask {
         return cleans.contains(path);
     }
 
-    private static InputSupplier getSupplier(List<File> files) throws IOException {
-        SequencedInputSupplier supplier = new SequencedInputSupplier(files.size() + 1);
+    private List<String> listFolder(File dir) {
+        List<String> out = new ArrayList<>();
+        listFolder(dir, "", out);
+        return out;
+    }
 
-        for (File f : files) {
-            if (f.isDirectory())
-                supplier.add(new FolderSupplier(f));
-            else {
-                ZipInputSupplier supp = new ZipInputSupplier();
-                supp.readZip(f);
-                supplier.add(supp);
-            }
+    private void listFolder(File dir, String prefix, List<String> out) {
+        File[] files = dir.listFiles();
+        if (files == null)
+            return;
+
+        Arrays.sort(files);
+        for (File file : files) {
+            String path = prefix + file.getName();
+            if (file.isDirectory())
+                listFolder(file, path + "/", out);
+            else if (path.endsWith(ending))
+                out.add(path);
         }
-
-        return supplier;
     }
 
     @InputFiles
@@ -19,29 +19,30 @@
  */
 package net.minecraftforge.gradle.patcher;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.PrintStream;
 import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
-import java.util.jar.JarInputStream;
 import java.util.jar.JarOutputStream;
-import java.util.jar.Pack200;
-import java.util.jar.Pack200.Packer;
 import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
 
-import lzma.streams.LzmaOutputStream;
+import net.minecraftforge.gradle.util.BinPatchFormat;
 
 import org.gradle.api.DefaultTask;
 import org.gradle.api.file.FileCollection;
+import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFile;
 import org.gradle.api.tasks.InputFiles;
 import org.gradle.api.tasks.OutputFile;
@@ -49,9 +50,11 @@ import org.gradle.api.tasks.TaskAction;
 
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Splitter;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.io.ByteArrayDataOutput;
 import com.google.common.io.ByteStreams;
@@ -77,12 +80,15 @@ class TaskGenBinPatches extends DefaultTask {
     private Object runBinPatches;
     //@formatter:on
 
+    private BinPatchFormat runtimeFormat = BinPatchFormat.PACK200_LZMA;
+    private BinPatchFormat devFormat = BinPatchFormat.PACK200_LZMA;
+
     private final List<Object> patchSets = Lists.newArrayList();
     private final HashMap<String, String> obfMapping = new HashMap<>();
     private final HashMap<String, String> srgMapping = new HashMap<>();
     private final Multimap<String, String> innerClasses = ArrayListMultimap.create();
     private final Set<String> patchedFiles = new HashSet<>();
-    private final Delta delta = new Delta();
+    private final ThreadLocal<Delta> delta = ThreadLocal.withInitial(Delta::new); // one per worker
 
     //@formatter:off
     public TaskGenBinPatches() {
@@ -109,24 +115,30 @@ class TaskGenBinPatches extends DefaultTask {
             }
         }
 
-        HashMap<String, byte[]> runtime = new HashMap<>();
-        HashMap<String, byte[]> devtime = new HashMap<>();
+        Map<String, byte[]> dirty = readPatchedClasses(getDirtyJar());
+
+        // all three sides at once, sorted so the jars come out the same every time
+        Map<String, Future<byte[]>> runtimeJobs = Maps.newTreeMap();
+        Map<String, Future<byte[]>> devtimeJobs = Maps.newTreeMap();
 
-        File dirtyJar = getDirtyJar();
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            createBinPatches(executor, runtimeJobs, "client/", getCleanClient(), dirty);
+            createBinPatches(executor, runtimeJobs, "server/", getCleanServer(), dirty);
+            createBinPatches(executor, devtimeJobs, "merged/", getCleanMerged(), dirty);
 
-        createBinPatches(runtime, "client/", getCleanClient(), dirtyJar);
-        createBinPatches(runtime, "server/", getCleanServer(), dirtyJar);
-        createBinPatches(devtime, "merged/", getCleanMerged(), dirtyJar);
+            final Map<String, byte[]> runtime = getAll(runtimeJobs);
+            final Map<String, byte[]> devtime = getAll(devtimeJobs);
 
-        byte[] runtimedata = createPatchJar(runtime);
-        runtimedata = pack200(runtimedata);
-        runtimedata = compress(runtimedata);
-        Files.write(runtimedata, getRuntimeBinPatches());
+            // the two archives don't depend on each other, so encode them side by side
+            Future<byte[]> runtimedata = executor.submit(() -> encode(runtime, getRuntimeFormat(), "runtime"));
+            Future<byte[]> devtimedata = executor.submit(() -> encode(devtime, getDevFormat(), "dev"));
 
-        byte[] devtimedata = createPatchJar(devtime);
-        devtimedata = pack200(devtimedata);
-        devtimedata = compress(devtimedata);
-        Files.write(devtimedata, getDevBinPatches());
+            Files.write(getFuture(runtimedata), getRuntimeBinPatches());
+            Files.write(getFuture(devtimedata), getDevBinPatches());
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
     private void addInnerClasses(String parent, Set<String> patchList) {
@@ -166,48 +178,84 @@ class TaskGenBinPatches extends DefaultTask {
         });
     }
 
-    private void createBinPatches(HashMap<String, byte[]> patches, String root, File base, File target) throws Exception {
+    private Map<String, byte[]> readPatchedClasses(File jar) throws Exception {
+        Map<String, byte[]> classes = new HashMap<>();
+        try (JarFile jarFile = new JarFile(jar)) {
+            for (String obf : obfMapping.keySet()) {
+                if (!patchedFiles.contains(obf)) // Not in the list of patch files.. we didn't edit it.
+                    continue;
+
+                JarEntry entry = jarFile.getJarEntry(obf + ".class");
+                if (entry != null)
+                    classes.put(obf, ByteStreams.toByteArray(jarFile.getInputStream(entry)));
+            }
+        }
+        return classes;
+    }
+
+    private void createBinPatches(ExecutorService executor, Map<String, Future<byte[]>> patches, String root, File base, Map<String, byte[]> dirtyClasses) throws Exception {
         JarFile cleanJ = new JarFile(base);
-        JarFile dirtyJ = new JarFile(target);
 
         for (Map.Entry<String, String> entry : obfMapping.entrySet()) {
-            String obf = entry.getKey();
-            String srg = entry.getValue();
+            final String obf = entry.getKey();
+            final String srg = entry.getValue();
+
+            final byte[] dirty = dirtyClasses.get(obf);
 
-            if (!patchedFiles.contains(obf)) // Not in the list of patch files.. we didn't edit it.
+            if (dirty == null) // Not patched, or something odd happened.. a base MC class wasn't in the obfed jar?
             {
                 continue;
             }
 
             JarEntry cleanE = cleanJ.getJarEntry(obf + ".class");
-            JarEntry dirtyE = dirtyJ.getJarEntry(obf + ".class");
+            final byte[] clean = (cleanE != null ? ByteStreams.toByteArray(cleanJ.getInputStream(cleanE)) : null);
 
-            if (dirtyE == null) //Something odd happened.. a base MC class wasn't in the obfed jar?
-            {
-                continue;
-            }
+            patches.put(root + srg.replace('/', '.') + ".binpatch", executor.submit(() -> createBinPatch(obf, srg, clean, dirty)));
+        }
+
+        cleanJ.close();
+    }
 
-            byte[] clean = (cleanE != null ? ByteStreams.toByteArray(cleanJ.getInputStream(cleanE)) : new byte[0]);
-            byte[] dirty = ByteStreams.toByteArray(dirtyJ.getInputStream(dirtyE));
+    private byte[] createBinPatch(String obf, String srg, byte[] clean, byte[] dirty) throws Exception {
+        byte[] diff = delta.get().compute(clean != null ? clean : new byte[0], dirty);
 
-            byte[] diff = delta.compute(clean, dirty);
+        ByteArrayDataOutput out = ByteStreams.newDataOutput(diff.length + 50);
+        out.writeUTF(obf);                   // Clean name
+        out.writeUTF(obf.replace('/', '.')); // Source Notch name
+        out.writeUTF(srg.replace('/', '.')); // Source SRG Name
+        out.writeBoolean(clean != null);     // Exists in Clean
+        if (clean != null) {
+            out.writeInt(adlerHash(clean)); // Hash of Clean file
+        }
+        out.writeInt(diff.length); // Patch length
+        out.write(diff);           // Patch
 
-            ByteArrayDataOutput out = ByteStreams.newDataOutput(diff.length + 50);
-            out.writeUTF(obf);                   // Clean name
-            out.writeUTF(obf.replace('/', '.')); // Source Notch name
-            out.writeUTF(srg.replace('/', '.')); // Source SRG Name
-            out.writeBoolean(cleanE != null);    // Exists in Clean
-            if (cleanE != null) {
-                out.writeInt(adlerHash(clean)); // Hash of Clean file
-            }
-            out.writeInt(diff.length); // Patch length
-            out.write(diff);           // Patch
+        return out.toByteArray();
+    }
 
-            patches.put(root + srg.replace('/', '.') + ".binpatch", out.toByteArray());
+    private static Map<String, byte[]> getAll(Map<String, Future<byte[]>> jobs) throws Exception {
+        Map<String, byte[]> out = Maps.newTreeMap();
+        for (Map.Entry<String, Future<byte[]>> e : jobs.entrySet()) {
+            out.put(e.getKey(), getFuture(e.getValue()));
         }
+        return out;
+    }
 
-        cleanJ.close();
-        dirtyJ.close();
+    private static byte[] getFuture(Future<byte[]> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            Throwables.throwIfInstanceOf(ex.getCause(), Exception.class);
+            throw ex;
+        }
+    }
+
+    private byte[] encode(Map<String, byte[]> patches, BinPatchFormat format, String name) throws Exception {
+        long start = System.nanoTime();
+        byte[] jar = createPatchJar(patches, format.isStoreEntries());
+        byte[] data = format.encode(jar);
+        getLogger().info("Encoded {} binpatches as {}: {} -> {} bytes in {}ms", name, format, jar.length, data.length, (System.nanoTime() - start) / 1000000);
+        return data;
     }
 
     private int adlerHash(byte[] input) {
@@ -216,47 +264,27 @@ class TaskGenBinPatches extends DefaultTask {
         return (int) hasher.getValue();
     }
 
-    private byte[] createPatchJar(HashMap<String, byte[]> patches) throws Exception {
+    private byte[] createPatchJar(Map<String, byte[]> patches, boolean store) throws Exception {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         JarOutputStream jar = new JarOutputStream(out);
+        CRC32 crc = new CRC32();
         for (Map.Entry<String, byte[]> entry : patches.entrySet()) {
-            jar.putNextEntry(new JarEntry("binpatch/" + entry.getKey()));
+            JarEntry e = new JarEntry("binpatch/" + entry.getKey());
+            if (store) {
+                // leave the compression to the container
+                crc.reset();
+                crc.update(entry.getValue());
+                e.setMethod(ZipEntry.STORED);
+                e.setSize(entry.getValue().length);
+                e.setCrc(crc.getValue());
+            }
+            jar.putNextEntry(e);
             jar.write(entry.getValue());
         }
         jar.close();
         return out.toByteArray();
     }
 
-    private byte[] pack200(byte[] data) throws Exception {
-        JarInputStream in = new JarInputStream(new ByteArrayInputStream(data));
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-
-        Packer packer = Pack200.newPacker();
-
-        SortedMap<String, String> props = packer.properties();
-        props.put(Packer.EFFORT, "9");
-        props.put(Packer.KEEP_FILE_ORDER, Packer.TRUE);
-        props.put(Packer.UNKNOWN_ATTRIBUTE, Packer.PASS);
-
-        final PrintStream err = new PrintStream(System.err);
-        System.setErr(new PrintStream(ByteStreams.nullOutputStream()));
-        packer.pack(in, out);
-        System.setErr(err);
-
-        in.close();
-        out.close();
-
-        return out.toByteArray();
-    }
-
-    private byte[] compress(byte[] data) throws Exception {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        LzmaOutputStream lzma = new LzmaOutputStream.Builder(out).useEndMarkerMode(true).build();
-        lzma.write(data);
-        lzma.close();
-        return out.toByteArray();
-    }
-
     public File getCleanClient() {
         return getProject().file(cleanClient);
     }
@@ -332,6 +360,24 @@ class TaskGenBinPatches extends DefaultTask {
         this.runBinPatches = runBinPatches;
     }
 
+    @Input
+    public BinPatchFormat getRuntimeFormat() {
+        return runtimeFormat;
+    }
+
+    public void setRuntimeFormat(BinPatchFormat runtimeFormat) {
+        this.runtimeFormat = runtimeFormat;
+    }
+
+    @Input
+    public BinPatchFormat getDevFormat() {
+        return devFormat;
+    }
+
+    public void setDevFormat(BinPatchFormat devFormat) {
+        this.devFormat = devFormat;
+    }
+
     public File getDevBinPatches() {
         return getProject().file(devBinPatches);
     }
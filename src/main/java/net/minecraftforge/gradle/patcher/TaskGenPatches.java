@@ -19,18 +19,27 @@
  */
 package net.minecraftforge.gradle.patcher;
 
-import java.io.ByteArrayInputStream;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import net.minecraftforge.gradle.common.Constants;
 import net.minecraftforge.gradle.util.SequencedInputSupplier;
+import net.minecraftforge.gradle.util.patching.DiffAlgorithm;
 import net.minecraftforge.srg2source.util.io.FolderSupplier;
 import net.minecraftforge.srg2source.util.io.InputSupplier;
 import net.minecraftforge.srg2source.util.io.ZipInputSupplier;
@@ -48,6 +57,7 @@ import org.gradle.api.tasks.TaskAction;
 import com.cloudbees.diff.Diff;
 import com.cloudbees.diff.Hunk;
 import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
 
@@ -61,6 +71,8 @@ class TaskGenPatches extends DefaultTask {
     private String originalPrefix = "";
     @Input
     private String changedPrefix = "";
+    @Input
+    private DiffAlgorithm diffAlgorithm = DiffAlgorithm.DIFF4J;
     //@formatter:on
 
     //@formatter:off
@@ -69,6 +81,8 @@ class TaskGenPatches extends DefaultTask {
     }
     //@formatter:on
 
+    private static final String NO_PATCH = "-";
+
     private final Set<File> created = new HashSet<>();
 
     @TaskAction
@@ -135,56 +149,158 @@ class TaskGenPatches extends DefaultTask {
     }
 
     public void processFiles(InputSupplier original, InputSupplier changed) throws IOException {
-        List<String> paths = original.gatherAll("");
-        for (String path : paths) {
-            path = path.replace('\\', '/');
-            try (InputStream o = original.getInput(path); InputStream c = changed.getInput(path)) {
-                processFile(path, o, c);
+        File manifestFile = new File(getTemporaryDir(), "patches.txt");
+        Map<String, String> oldManifest = readManifest(manifestFile);
+        Map<String, String> newManifest = new TreeMap<>();
+        Map<String, Future<String>> jobs = new TreeMap<>();
+        String prefixes = originalPrefix + "|" + changedPrefix + "|" + diffAlgorithm;
+        int unchanged = 0;
+
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            List<String> paths = original.gatherAll("");
+            for (String path : paths) {
+                path = path.replace('\\', '/');
+                final String relative = path;
+
+                // We have to cache the bytes because diff reads the stream twice.. why.. who knows.
+                final byte[] oData;
+                final byte[] cData;
+                try (InputStream o = original.getInput(path); InputStream c = changed.getInput(path)) {
+                    if (c == null) {
+                        getLogger().debug("Diffing: {}", path);
+                        getLogger().debug("    Changed File does not exist");
+                        continue;
+                    }
+                    oData = ByteStreams.toByteArray(o);
+                    cData = ByteStreams.toByteArray(c);
+                }
+
+                File patchFile = new File(getPatchDir(), path + ".patch").getCanonicalFile();
+                String key = Constants.hash(oData) + "\t" + Constants.hash(cData) + "\t" + prefixes;
+                String oldEntry = oldManifest.get(path);
+
+                // same inputs as last time, and the patch is still what we wrote then
+                if (oldEntry != null && oldEntry.startsWith(key + "\t")) {
+                    String patchHash = oldEntry.substring(key.length() + 1);
+                    boolean upToDate = NO_PATCH.equals(patchHash) ? !patchFile.exists() : patchFile.exists() && patchHash.equals(Constants.hash(patchFile));
+                    if (upToDate) {
+                        if (!NO_PATCH.equals(patchHash))
+                            created.add(patchFile);
+                        newManifest.put(path, oldEntry);
+                        unchanged++;
+                        continue;
+                    }
+                }
+
+                newManifest.put(path, key);
+                jobs.put(path, executor.submit(() -> makePatch(relative, oData, cData)));
             }
+
+            for (Map.Entry<String, Future<String>> e : jobs.entrySet()) {
+                String unidiff;
+                try {
+                    unidiff = e.getValue().get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while generating patches", ex);
+                } catch (ExecutionException ex) {
+                    Throwables.throwIfInstanceOf(ex.getCause(), IOException.class);
+                    Throwables.throwIfUnchecked(ex.getCause());
+                    throw new RuntimeException(ex.getCause());
+                }
+
+                String patchHash = writePatch(e.getKey(), unidiff);
+                newManifest.put(e.getKey(), newManifest.get(e.getKey()) + "\t" + patchHash);
+            }
+        } finally {
+            executor.shutdownNow();
         }
+
+        getLogger().debug("Diffed {} files, {} were unchanged", jobs.size(), unchanged);
+        writeManifest(manifestFile, newManifest);
     }
 
-    public void processFile(String relative, InputStream original, InputStream changed) throws IOException {
+    /**
+     * @return the unified diff, or null if the files are the same
+     */
+    private String makePatch(String relative, byte[] oData, byte[] cData) throws IOException {
         getLogger().debug("Diffing: {}", relative);
 
+        // decoded and split once, the unified diff reads the text again
+        String oText = new String(oData, Charsets.UTF_8);
+        String cText = new String(cData, Charsets.UTF_8);
+
+        Diff diff = diffAlgorithm.diff(getLines(oText), getLines(cText));
+
+        if (!relative.startsWith("/"))
+            relative = "/" + relative;
+
+        if (diff.isEmpty())
+            return null;
+
+        String unidiff = diff.toUnifiedDiff(originalPrefix + relative, changedPrefix + relative, new StringReader(oText), new StringReader(cText), 3);
+        unidiff = unidiff.replace("\r\n", "\n"); //Normalize lines
+        unidiff = unidiff.replace("\n" + Hunk.ENDING_NEWLINE + "\n", "\n"); //We give 0 shits about this.
+        return unidiff;
+    }
+
+    private static List<String> getLines(String text) throws IOException {
+        // same splitting as diff4j
+        List<String> lines = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new StringReader(text));
+        String line;
+        while ((line = reader.readLine()) != null)
+            lines.add(line);
+        return lines;
+    }
+
+    /**
+     * @return the hash of the patch file, or {@link #NO_PATCH}
+     */
+    private String writePatch(String relative, String unidiff) throws IOException {
         File patchFile = new File(getPatchDir(), relative + ".patch").getCanonicalFile();
 
-        if (changed == null) {
-            getLogger().debug("    Changed File does not exist");
-            return;
+        if (unidiff == null) {
+            return NO_PATCH;
         }
 
-        // We have to cache the bytes because diff reads the stream twice.. why.. who knows.
-        byte[] oData = ByteStreams.toByteArray(original);
-        byte[] cData = ByteStreams.toByteArray(changed);
-
-        Diff diff = Diff.diff(new InputStreamReader(new ByteArrayInputStream(oData), Charsets.UTF_8), new InputStreamReader(new ByteArrayInputStream(cData), Charsets.UTF_8), false);
+        String olddiff = "";
+        if (patchFile.exists()) {
+            olddiff = Files.asCharSource(patchFile, Charsets.UTF_8).read();
+        }
 
-        if (!relative.startsWith("/"))
-            relative = "/" + relative;
+        if (!olddiff.equals(unidiff)) {
+            getLogger().debug("Writing patch: {}", patchFile);
+            patchFile.getParentFile().mkdirs();
+            Files.touch(patchFile);
+            Files.asCharSink(patchFile, Charsets.UTF_8).write(unidiff);
+        } else {
+            getLogger().debug("Patch did not change");
+        }
+        created.add(patchFile);
 
-        if (!diff.isEmpty()) {
-            String unidiff = diff.toUnifiedDiff(originalPrefix + relative, changedPrefix + relative,
-                    new InputStreamReader(new ByteArrayInputStream(oData), Charsets.UTF_8),
-                    new InputStreamReader(new ByteArrayInputStream(cData), Charsets.UTF_8), 3);
-            unidiff = unidiff.replace("\r\n", "\n"); //Normalize lines
-            unidiff = unidiff.replace("\n" + Hunk.ENDING_NEWLINE + "\n", "\n"); //We give 0 shits about this.
+        return Constants.hash(unidiff.getBytes(Charsets.UTF_8));
+    }
 
-            String olddiff = "";
-            if (patchFile.exists()) {
-                olddiff = Files.asCharSource(patchFile, Charsets.UTF_8).read();
+    private static Map<String, String> readManifest(File file) throws IOException {
+        Map<String, String> manifest = new HashMap<>();
+        if (file.exists()) {
+            for (String line : Files.readLines(file, Charsets.UTF_8)) {
+                int idx = line.indexOf('\t');
+                if (idx > 0)
+                    manifest.put(line.substring(0, idx), line.substring(idx + 1));
             }
+        }
+        return manifest;
+    }
 
-            if (!olddiff.equals(unidiff)) {
-                getLogger().debug("Writing patch: {}", patchFile);
-                patchFile.getParentFile().mkdirs();
-                Files.touch(patchFile);
-                Files.asCharSink(patchFile, Charsets.UTF_8).write(unidiff);
-            } else {
-                getLogger().debug("Patch did not change");
-            }
-            created.add(patchFile);
+    private static void writeManifest(File file, Map<String, String> manifest) throws IOException {
+        StringBuilder buf = new StringBuilder();
+        for (Map.Entry<String, String> e : manifest.entrySet()) {
+            buf.append(e.getKey()).append('\t').append(e.getValue()).append('\n');
         }
+        Files.asCharSink(file, Charsets.UTF_8).write(buf);
     }
 
     @InputFiles
@@ -235,6 +351,14 @@ class TaskGenPatches extends DefaultTask {
         this.originalPrefix = originalPrefix;
     }
 
+    public DiffAlgorithm getDiffAlgorithm() {
+        return diffAlgorithm;
+    }
+
+    public void setDiffAlgorithm(DiffAlgorithm diffAlgorithm) {
+        this.diffAlgorithm = diffAlgorithm;
+    }
+
     public String getChangedPrefix() {
         return changedPrefix;
     }
@@ -23,7 +23,6 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.net.URLClassLoader;
 import java.nio.charset.Charset;
 import java.util.LinkedList;
 import java.util.List;
@@ -31,10 +30,9 @@ import java.util.List;
 import net.md_5.specialsource.Jar;
 import net.md_5.specialsource.JarMapping;
 import net.md_5.specialsource.JarRemapper;
-import net.md_5.specialsource.provider.ClassLoaderProvider;
 import net.md_5.specialsource.provider.JarProvider;
 import net.md_5.specialsource.provider.JointProvider;
-import net.minecraftforge.gradle.common.Constants;
+import net.minecraftforge.gradle.util.InheritanceIndex;
 import net.minecraftforge.gradle.util.mcp.ReobfExceptor;
 
 import org.gradle.api.DefaultTask;
@@ -127,7 +125,7 @@ class TaskReobfuscate extends DefaultTask {
         inheritanceProviders.add(new JarProvider(input));
 
         if (classpath != null)
-            inheritanceProviders.add(new ClassLoaderProvider(new URLClassLoader(Constants.toUrls(classpath))));
+            inheritanceProviders.add(new InheritanceIndex(classpath, InheritanceIndex.getCacheDir(getProject())));
 
         mapping.setFallbackInheritanceProvider(inheritanceProviders);
 
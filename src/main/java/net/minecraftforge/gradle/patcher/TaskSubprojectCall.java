@@ -27,13 +27,25 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import javax.inject.Inject;
+
 import net.minecraftforge.gradle.common.Constants;
 
 import org.gradle.api.DefaultTask;
 import org.gradle.api.invocation.Gradle;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.TaskAction;
-import org.gradle.tooling.GradleConnector;
+import org.gradle.tooling.BuildException;
+import org.gradle.tooling.GradleConnectionException;
 import org.gradle.tooling.ProjectConnection;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+import org.gradle.workers.WorkerExecutor;
 
 import com.google.common.base.Splitter;
 import com.google.common.collect.Lists;
@@ -41,7 +53,7 @@ import com.google.common.collect.Maps;
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
 
-class TaskSubprojectCall extends DefaultTask {
+abstract class TaskSubprojectCall extends DefaultTask {
     private Object projectDir;
     private Object callLine;
     private final List<URL> initResources = Lists.newArrayList();
@@ -50,15 +62,27 @@ class TaskSubprojectCall extends DefaultTask {
     //@formatter:off
     public TaskSubprojectCall() {
         super();
+
+        // connections are shared by every task that builds the same project, and closed at the end of the build
+        Provider<SubprojectConnections> connections = getProject().getGradle().getSharedServices()
+                .registerIfAbsent(SubprojectConnections.NAME, SubprojectConnections.class, spec -> {});
+        getConnections().set(connections);
+        usesService(connections);
     }
     //@formatter:on
 
+    @Internal
+    protected abstract Property<SubprojectConnections> getConnections();
+
+    @Inject
+    protected abstract WorkerExecutor getWorkerExecutor();
+
     @TaskAction
     public void doTask() throws IOException {
         // resolve replacements
         replacements.replaceAll((k, v) -> Constants.resolveString(v).replace('\\', '/'));
 
-        // extract extra initscripts
+        // extract extra initscripts, only touching them when the replacements changed
         List<File> initscripts = Lists.newArrayListWithCapacity(initResources.size());
         for (int i = 0; i < initResources.size(); i++) {
             File file = new File(getTemporaryDir(), "initscript" + i);
@@ -68,24 +92,14 @@ class TaskSubprojectCall extends DefaultTask {
                 thing = thing.replace(entry.getKey(), (String) entry.getValue());
             }
 
-            Files.asCharSink(file, Constants.CHARSET).write(thing);
+            if (!file.exists() || !thing.equals(Files.asCharSource(file, Constants.CHARSET).read()))
+                Files.asCharSink(file, Constants.CHARSET).write(thing);
             initscripts.add(file);
         }
 
         // get current Gradle instance
         Gradle gradle = getProject().getGradle();
 
-        getProject().getLogger().lifecycle("------------------------ ");
-        getProject().getLogger().lifecycle("--------SUB-CALL-------- ");
-        getProject().getLogger().lifecycle("------------------------ ");
-
-        // connect to project
-        ProjectConnection connection = GradleConnector.newConnector()
-                .useGradleUserHomeDir(gradle.getGradleUserHomeDir())
-                .useInstallation(gradle.getGradleHomeDir())
-                .forProjectDirectory(getProjectDir())
-                .connect();
-
         //get args
         ArrayList<String> args = new ArrayList<>(5);
         args.addAll(Splitter.on(' ').splitToList(getCallLine()));
@@ -94,18 +108,64 @@ class TaskSubprojectCall extends DefaultTask {
             args.add("-I" + f.getCanonicalPath());
         }
 
-        // build
-        connection.newBuild()
-                .setStandardOutput(System.out)
-                .setStandardInput(System.in)
-                .setStandardError(System.err)
-                .withArguments(args.toArray(new String[0]))
-                .setColorOutput(false)
-                .run();
-
-        getProject().getLogger().lifecycle("------------------------ ");
-        getProject().getLogger().lifecycle("------END-SUB-CALL------ ");
-        getProject().getLogger().lifecycle("------------------------ ");
+        // run as work so other sub-builds, and anything else that doesn't depend on this one, can go at the same time
+        final File dir = getProjectDir();
+        getWorkerExecutor().noIsolation().submit(SubprojectBuild.class, params -> {
+            params.getProjectDir().set(dir);
+            params.getGradleHome().set(gradle.getGradleHomeDir());
+            params.getGradleUserHome().set(gradle.getGradleUserHomeDir());
+            params.getArguments().set(args);
+            params.getConnections().set(getConnections());
+        });
+    }
+
+    public interface SubprojectParameters extends WorkParameters {
+        Property<File> getProjectDir();
+
+        Property<File> getGradleHome();
+
+        Property<File> getGradleUserHome();
+
+        ListProperty<String> getArguments();
+
+        Property<SubprojectConnections> getConnections();
+    }
+
+    public abstract static class SubprojectBuild implements WorkAction<SubprojectParameters> {
+        @Override
+        public void execute() {
+            SubprojectParameters params = getParameters();
+            File dir = params.getProjectDir().get();
+            Logger logger = Logging.getLogger(TaskSubprojectCall.class);
+
+            logger.lifecycle("------------------------ ");
+            logger.lifecycle("--------SUB-CALL-------- {}", dir.getName());
+            logger.lifecycle("------------------------ ");
+
+            // connect to project
+            SubprojectConnections connections = params.getConnections().get();
+            ProjectConnection connection = connections.get(dir, params.getGradleHome().get(), params.getGradleUserHome().get());
+
+            // build
+            try {
+                connection.newBuild()
+                        .setStandardOutput(System.out)
+                        .setStandardInput(System.in)
+                        .setStandardError(System.err)
+                        .withArguments(params.getArguments().get())
+                        .setColorOutput(false)
+                        .run();
+            } catch (GradleConnectionException e) {
+                // a failed build leaves the connection usable, anything else means the daemon is gone
+                if (!(e instanceof BuildException))
+                    connections.discard(connection);
+                throw e;
+            }
+
+            logger.lifecycle("------------------------ ");
+            logger.lifecycle("------END-SUB-CALL------ {}", dir.getName());
+            logger.lifecycle("------------------------ ");
+        }
     }
 
     public File getProjectDir() {
@@ -19,17 +19,28 @@
  */
 package net.minecraftforge.gradle.tasks;
 
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.nio.charset.Charset;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import net.minecraftforge.gradle.common.Constants;
+import net.minecraftforge.gradle.util.PartitionInputSupplier;
 import net.minecraftforge.gradle.util.SequencedInputSupplier;
 import net.minecraftforge.gradle.util.SourceDirSetSupplier;
+import net.minecraftforge.gradle.util.SynchronizedOutputSupplier;
 import net.minecraftforge.srg2source.rangeapplier.RangeApplier;
 import net.minecraftforge.srg2source.util.io.FolderSupplier;
 import net.minecraftforge.srg2source.util.io.InputSupplier;
@@ -51,6 +62,10 @@ import com.google.common.collect.Maps;
 import com.google.common.io.Files;
 
 public class ApplyS2STask extends DefaultTask {
+    private static final int MIN_FILES_PER_WORKER = 16;
+    private static final String RANGE_START = "startProcessing \"";
+    private static final String RANGE_END = "endProcessing";
+
     @InputFiles
     private final List<Object> srg = new LinkedList<>();
 
@@ -69,6 +84,9 @@ public class ApplyS2STask extends DefaultTask {
     private final List<Object> in = new LinkedList<>();
     private Object out;
 
+    private boolean parallel = false;
+    private boolean dumpRenameMap = false;
+
     @TaskAction
     public void doTask() throws IOException {
         File out = getOut();
@@ -136,18 +154,137 @@ public class ApplyS2STask extends DefaultTask {
     }
 
     private void applyRangeMap(InputSupplier inSup, OutputSupplier outSup, FileCollection srg, FileCollection exc, File rangeMap, File rangeLog) throws IOException {
-        RangeApplier app = new RangeApplier().readSrg(srg.getFiles());
+        PrintStream log = Constants.getTaskLogStream(getProject(), this.getName() + ".log");
+
+        Set<File> srgs = srg.getFiles();
+        Set<File> excs = exc.getFiles();
+        List<String> files = inSup.gatherAll(".java");
+        int workers = isParallel() ? Math.min(Runtime.getRuntime().availableProcessors(), files.size() / MIN_FILES_PER_WORKER) : 1;
+
+        try {
+            if (workers <= 1) {
+                createApplier(srgs, excs, log, isDumpRenameMap()).remapSources(inSup, outSup, rangeMap, false);
+                return;
+            }
+
+            remapParallel(srgs, excs, log, inSup, outSup, files, rangeMap, workers);
+        } finally {
+            log.close();
+        }
+    }
+
+    private static RangeApplier createApplier(Set<File> srgs, Set<File> excs, PrintStream log, boolean dumpRenameMap) throws IOException {
+        RangeApplier app = new RangeApplier().readSrg(srgs);
 
-        app.setOutLogger(Constants.getTaskLogStream(getProject(), this.getName() + ".log"));
+        app.setOutLogger(log);
 
-        if (!exc.isEmpty()) {
-            app.readParamMap(exc);
+        if (!excs.isEmpty()) {
+            app.readParamMap(excs);
         }
 
         // for debugging.
-        app.dumpRenameMap();
+        if (dumpRenameMap)
+            app.dumpRenameMap();
+
+        return app;
+    }
+
+    /**
+     * RangeApplier only reads its rename map from files and has no way to share one that is already built,
+     * and it is not safe to share between threads. So every worker reads the SRGs and EXCs itself, on its own thread
+     * so the parsing at least overlaps, and holds its own copy of the rename map.
+     */
+    private void remapParallel(final Set<File> srgs, final Set<File> excs, PrintStream log, InputSupplier inSup, OutputSupplier outSup, List<String> files, File rangeMap, int workers) throws IOException {
+        // deal out the files, every worker gets its own applier and log so nothing mutable is shared
+        Map<String, Integer> partitions = Maps.newHashMap();
+        int i = 0;
+        for (String file : files)
+            partitions.put(file, i++ % workers);
+
+        File[] rangeMaps = splitRangeMap(rangeMap, partitions, workers);
+
+        final OutputSupplier syncOut = new SynchronizedOutputSupplier(outSup);
+        ByteArrayOutputStream[] logs = new ByteArrayOutputStream[workers];
+        List<Callable<Void>> jobs = Lists.newArrayList();
+        for (i = 0; i < workers; i++) {
+            logs[i] = new ByteArrayOutputStream();
+            final PrintStream partLog = new PrintStream(logs[i], true);
+            final boolean dump = i == 0 && isDumpRenameMap();
+            final InputSupplier partIn = new PartitionInputSupplier(inSup, partitions, i);
+            final File partRange = rangeMaps[i];
+            jobs.add(() -> {
+                createApplier(srgs, excs, partLog, dump).remapSources(partIn, syncOut, partRange, false);
+                return null;
+            });
+        }
+
+        getLogger().info("remapping {} files on {} threads", files.size(), workers);
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            for (Future<Void> future : executor.invokeAll(jobs)) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+                    Throwables.throwIfUnchecked(e.getCause());
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while remapping sources", e);
+        } finally {
+            executor.shutdownNow();
+
+            // in worker order, so the log reads the same on every run
+            for (ByteArrayOutputStream part : logs)
+                part.writeTo(log);
+        }
+    }
+
+    /**
+     * Splits the range map by partition, so each worker only loads the ranges of its own files.
+     * Anything outside a file block, or for files that are not being remapped, goes to every partition.
+     */
+    private File[] splitRangeMap(File rangeMap, Map<String, Integer> partitions, int count) throws IOException {
+        File[] files = new File[count];
+        BufferedWriter[] writers = new BufferedWriter[count];
+        try (BufferedReader reader = Files.newReader(rangeMap, Charsets.UTF_8)) {
+            for (int i = 0; i < count; i++) {
+                files[i] = new File(getTemporaryDir(), "rangemap-" + i + ".txt");
+                writers[i] = Files.newWriter(files[i], Charsets.UTF_8);
+            }
+
+            BufferedWriter current = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RANGE_START)) {
+                    int end = line.indexOf('"', RANGE_START.length());
+                    Integer partition = end == -1 ? null : partitions.get(line.substring(RANGE_START.length(), end));
+                    current = partition == null ? null : writers[partition];
+                }
 
-        app.remapSources(inSup, outSup, rangeMap, false);
+                if (current != null) {
+                    current.write(line);
+                    current.newLine();
+                } else {
+                    for (BufferedWriter writer : writers) {
+                        writer.write(line);
+                        writer.newLine();
+                    }
+                }
+
+                if (line.startsWith(RANGE_END))
+                    current = null;
+            }
+        } finally {
+            for (BufferedWriter writer : writers) {
+                if (writer != null)
+                    writer.close();
+            }
+        }
+        return files;
     }
 
 
@@ -361,4 +498,27 @@ public class ApplyS2STask extends DefaultTask {
     public File getExcModifiers() {
         return this.excModifiers == null ? null : this.getProject().file(excModifiers);
     }
+
+    /**
+     * Remaps the files on several threads. Each thread loads its own copy of the rename map from the SRGs and EXCs,
+     * so memory use grows with the number of threads.
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Dumps the full rename map to the task log, for debugging.
+     */
+    public boolean isDumpRenameMap() {
+        return dumpRenameMap;
+    }
+
+    public void setDumpRenameMap(boolean dumpRenameMap) {
+        this.dumpRenameMap = dumpRenameMap;
+    }
 }
@@ -0,0 +1,93 @@
+/*
+ * A Gradle plugin for the creation of Minecraft mods and MinecraftForge plugins.
+ * Copyright (C) 2013 Minecraft Forge
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package net.minecraftforge.gradle.tasks;
+
+import java.io.File;
+import java.io.IOException;
+
+import net.minecraftforge.gradle.util.caching.Cached;
+import net.minecraftforge.gradle.util.caching.CachedTask;
+import net.minecraftforge.gradle.util.delayed.DelayedFile;
+import net.minecraftforge.gradle.util.mcp.McpMappings;
+
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Compiles the MCP CSVs into the binary format read by {@link McpMappings}, so later builds can map it instead of
+ * parsing the CSVs again.
+ */
+public class CompileMappings extends CachedTask {
+    @InputFile
+    private DelayedFile methodsCsv;
+
+    @InputFile
+    private DelayedFile fieldsCsv;
+
+    @InputFile
+    private DelayedFile paramsCsv;
+
+    private DelayedFile outFile;
+
+    @TaskAction
+    public void doTask() {
+        try {
+            McpMappings.compile(getOutFile(), getMethodsCsv(), getFieldsCsv(), getParamsCsv());
+        } catch (IOException e) {
+            // not fatal, everything reading the mappings falls back to the CSVs.
+            getLogger().warn("Could not compile the MCP mappings, the CSVs will be used instead", e);
+        }
+    }
+
+    public File getMethodsCsv() {
+        return methodsCsv.call();
+    }
+
+    public void setMethodsCsv(DelayedFile methodsCsv) {
+        this.methodsCsv = methodsCsv;
+    }
+
+    public File getFieldsCsv() {
+        return fieldsCsv.call();
+    }
+
+    public void setFieldsCsv(DelayedFile fieldsCsv) {
+        this.fieldsCsv = fieldsCsv;
+    }
+
+    public File getParamsCsv() {
+        return paramsCsv.call();
+    }
+
+    public void setParamsCsv(DelayedFile paramsCsv) {
+        this.paramsCsv = paramsCsv;
+    }
+
+    @Cached
+    @OutputFile
+    public File getOutFile() {
+        return outFile.call();
+    }
+
+    public void setOutFile(DelayedFile outFile) {
+        this.outFile = outFile;
+    }
+}
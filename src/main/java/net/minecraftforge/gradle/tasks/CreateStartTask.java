@@ -26,8 +26,17 @@ import java.io.IOException;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
 
 import net.minecraftforge.gradle.common.Constants;
 import net.minecraftforge.gradle.util.caching.Cached;
@@ -37,8 +46,6 @@ import org.gradle.api.AntBuilder;
 import org.gradle.api.Task;
 import org.gradle.api.AntBuilder.AntMessagePriority;
 import org.gradle.api.file.FileCollection;
-import org.gradle.api.file.FileVisitDetails;
-import org.gradle.api.file.FileVisitor;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.api.tasks.OutputDirectory;
 import org.gradle.api.tasks.TaskAction;
@@ -78,10 +85,8 @@ public class CreateStartTask extends CachedTask {
             replacements.put(entry.getKey(), resolveString(entry.getValue()));
         }
 
-        // set the output of the files
-        File resourceDir = compile ? new File(getTemporaryDir(), "extracted") : getStartOut();
-
-        // replace and extract
+        // replace, sorted so the cache key is stable
+        Map<String, String> sources = new TreeMap<>();
         for (Entry<String, String> resEntry : resources.entrySet()) {
             String out = resEntry.getValue();
             for (Entry<String, Object> replacement : replacements.entrySet()) {
@@ -94,58 +99,149 @@ public class CreateStartTask extends CachedTask {
                 out = out.replace(EXTRA_LINES, replacement);
             }
 
-            // write file
-            File outFile = new File(resourceDir, resEntry.getKey());
-            outFile.getParentFile().mkdirs();
-            Files.asCharSink(outFile, Charsets.UTF_8).write(out);
+            sources.put(resEntry.getKey(), out);
+        }
+
+        if (!compile) {
+            writeSources(sources, getStartOut());
+            return;
         }
 
-        // now compile, if im compiling.
-        if (compile) {
-            final File compiled = getStartOut(); // quas
-            compiled.mkdirs(); // wex
+        // build claspath    exort
+        FileCollection col = null;
+        for (String s : classpath) {
+            FileCollection config = getProject().getConfigurations().getByName(s);
 
-            // build claspath    exort
-            FileCollection col = null;
-            for (String s : classpath) {
-                FileCollection config = getProject().getConfigurations().getByName(s);
+            if (col == null)
+                col = config;
+            else
+                col = col.plus(config);
+        }
+
+        // the compiled classes only depend on the sources and what they compile against
+        StringBuilder key = new StringBuilder();
+        for (Entry<String, String> e : sources.entrySet()) {
+            key.append(e.getKey()).append('\0').append(e.getValue()).append('\0');
+        }
+        for (File f : col.getFiles()) {
+            key.append(f.getAbsolutePath()).append('|').append(f.length()).append('|').append(f.lastModified()).append('\0');
+        }
 
-                if (col == null)
-                    col = config;
-                else
-                    col = col.plus(config);
+        File cached = new File(getProject().getGradle().getGradleUserHomeDir(), "caches/minecraft/startCache/" + Constants.hash(key.toString()));
+        File marker = new File(cached, ".complete");
+
+        if (!marker.exists()) {
+            getLogger().info("Compiling start classes into {}", cached);
+            File tmp = new File(cached.getPath() + ".tmp" + System.nanoTime());
+
+            // copy the sources too, for debugging through GradleStart
+            writeSources(sources, tmp);
+            compile(tmp, col);
+
+            Files.touch(new File(tmp, ".complete"));
+            if (!tmp.renameTo(cached)) {
+                // someone else got there first, or a broken leftover is in the way
+                if (!marker.exists()) {
+                    delete(cached);
+                    if (!tmp.renameTo(cached))
+                        throw new IOException("Could not move " + tmp + " to " + cached);
+                } else {
+                    delete(tmp);
+                }
             }
+        } else {
+            getLogger().info("Using cached start classes from {}", cached);
+        }
+
+        copyTree(cached, getStartOut());
+    }
+
+    private static void writeSources(Map<String, String> sources, File dir) throws IOException {
+        for (Entry<String, String> e : sources.entrySet()) {
+            File outFile = new File(dir, e.getKey());
+            if (outFile.exists() && e.getValue().equals(Files.asCharSource(outFile, Charsets.UTF_8).read()))
+                continue;
 
+            outFile.getParentFile().mkdirs();
+            Files.asCharSink(outFile, Charsets.UTF_8).write(e.getValue());
+        }
+    }
+
+    private void compile(File dir, FileCollection classpath) throws IOException {
+        List<File> javaFiles = Lists.newArrayList();
+        for (File f : getProject().fileTree(dir)) {
+            if (f.getName().endsWith(".java"))
+                javaFiles.add(f);
+        }
+
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        if (javac == null) {
+            // running on a plain JRE, so fall back to ant
             AntBuilder ant = CreateStartTask.setupAnt(this);
             // INVOKE!
             ant.invokeMethod("javac", ImmutableMap.builder()
-                    .put("srcDir", resourceDir.getCanonicalPath())
-                    .put("destDir", compiled.getCanonicalPath())
+                    .put("srcDir", dir.getCanonicalPath())
+                    .put("destDir", dir.getCanonicalPath())
                     .put("failonerror", true)
                     .put("includeantruntime", false)
-                    .put("classpath", col.getAsPath()) // because ant knows what a file collection is
+                    .put("classpath", classpath.getAsPath()) // because ant knows what a file collection is
                     .put("encoding", "utf-8")
                     .put("source", "1.8")
                     .put("target", "1.8")
                     .put("debug", "true")
                     .build());
+            return;
+        }
 
-            // copy the sources too, for debugging through GradleStart
-            getProject().fileTree(resourceDir).visit(new FileVisitor() {
-
-                @Override
-                public void visitDir(FileVisitDetails arg0) {
-                    // ignore
-                }
-
-                @Override
-                public void visitFile(FileVisitDetails arg0) {
-                    arg0.copyTo(arg0.getRelativePath().getFile(compiled));
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = javac.getStandardFileManager(diagnostics, null, Charsets.UTF_8)) {
+            List<String> options = Lists.newArrayList(
+                    "-d", dir.getCanonicalPath(),
+                    "-classpath", classpath.getAsPath(),
+                    "-encoding", "utf-8",
+                    "-source", "1.8",
+                    "-target", "1.8",
+                    "-g",
+                    "-nowarn",
+                    "-Xlint:-options");
+
+            boolean success = javac.getTask(null, fileManager, diagnostics, options, null, fileManager.getJavaFileObjectsFromFiles(javaFiles)).call();
+            if (!success) {
+                StringBuilder msg = new StringBuilder("Failed to compile start classes:");
+                for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+                    if (d.getKind() == Diagnostic.Kind.ERROR)
+                        msg.append('\n').append(d);
                 }
+                throw new RuntimeException(msg.toString());
+            }
+        }
+    }
 
-            });
+    private static void copyTree(File from, File to) throws IOException {
+        File[] files = from.listFiles();
+        if (files == null)
+            return;
+
+        for (File f : files) {
+            File target = new File(to, f.getName());
+            if (f.isDirectory()) {
+                copyTree(f, target);
+            } else if (!f.getName().equals(".complete")) {
+                if (target.exists() && target.length() == f.length() && Files.asByteSource(target).contentEquals(Files.asByteSource(f)))
+                    continue;
+
+                target.getParentFile().mkdirs();
+                Files.copy(f, target);
+            }
         }
+    }
 
+    private static void delete(File f) {
+        if (f.isDirectory()) {
+            for (File c : f.listFiles())
+                delete(c);
+        }
+        f.delete();
     }
 
     public static AntBuilder setupAnt(Task task) {
@@ -19,7 +19,6 @@
  */
 package net.minecraftforge.gradle.tasks;
 
-import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -37,6 +36,7 @@ import net.minecraftforge.gradle.util.caching.CachedTask;
 import net.minecraftforge.gradle.util.json.JsonFactory;
 import net.minecraftforge.gradle.util.json.MCInjectorStruct;
 import net.minecraftforge.gradle.util.json.MCInjectorStruct.InnerClass;
+import net.minecraftforge.gradle.util.mcp.McpMappings;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.*;
@@ -113,7 +113,7 @@ public class DeobfuscateJar extends CachedTask {
         mapping.loadMappings(srg);
 
         // load in ATs
-        ErroringRemappingAccessMap accessMap = new ErroringRemappingAccessMap(new File[]{getMethodCsv(), getFieldCsv()});
+        ErroringRemappingAccessMap accessMap = new ErroringRemappingAccessMap(getMethodCsv(), getFieldCsv());
 
         getLogger().info("Using AccessTransformers...");
         //Make SS shutup about access maps
@@ -432,32 +432,12 @@ public class DeobfuscateJar extends CachedTask {
     }
 
     private static final class ErroringRemappingAccessMap extends AccessMap {
-        private final Map<String, String> renames = Maps.newHashMap();
+        private final McpMappings renames;
         public final Map<String, String> brokenLines = Maps.newHashMap();
 
-        public ErroringRemappingAccessMap(File[] renameCsvs) throws IOException {
+        public ErroringRemappingAccessMap(File methodCsv, File fieldCsv) throws IOException {
             super();
-
-            for (File f : renameCsvs) {
-                if (f == null)
-                    continue;
-                Files.asCharSource(f, Charsets.UTF_8).readLines(new LineProcessor<String>() {
-                    @Override
-                    public boolean processLine(String line) {
-                        String[] pts = line.split(",");
-                        if (!"searge".equals(pts[0])) {
-                            renames.put(pts[0], pts[1]);
-                        }
-
-                        return true;
-                    }
-
-                    @Override
-                    public String getResult() {
-                        return null;
-                    }
-                });
-            }
+            renames = McpMappings.load(methodCsv, fieldCsv);
         }
 
         @Override
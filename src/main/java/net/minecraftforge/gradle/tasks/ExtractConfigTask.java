@@ -25,7 +25,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Set;
 
-import net.minecraftforge.gradle.util.ExtractionVisitor;
+import net.minecraftforge.gradle.util.ZipExtractor;
 import net.minecraftforge.gradle.util.caching.Cached;
 import net.minecraftforge.gradle.util.caching.CachedTask;
 
@@ -36,7 +36,6 @@ import org.gradle.api.tasks.*;
 import org.gradle.api.tasks.util.PatternFilterable;
 import org.gradle.api.tasks.util.PatternSet;
 
-@SuppressWarnings("ResultOfMethodCallIgnored")
 public class ExtractConfigTask extends CachedTask implements PatternFilterable {
 
     @Input
@@ -61,28 +60,8 @@ public class ExtractConfigTask extends CachedTask implements PatternFilterable {
 
     @TaskAction
     public void doTask() throws IOException {
-        File dest = getDestinationDir();
-
-        if (getClean()) {
-            delete(dest);
-        }
-
-        dest.mkdirs();
-
-        ExtractionVisitor visitor = new ExtractionVisitor(dest, isIncludeEmptyDirs(), patternSet.getAsSpec());
-
-        for (File source : getConfigFiles()) {
-            getLogger().debug("Extracting: {}", source);
-            getProject().zipTree(source).visit(visitor);
-        }
-    }
-
-    private void delete(File f) {
-        if (f.isDirectory()) {
-            for (File c : f.listFiles())
-                delete(c);
-        }
-        f.delete();
+        // only stale files are removed when cleaning, anything that still matches is kept
+        new ZipExtractor(getDestinationDir(), isIncludeEmptyDirs(), patternSet.getAsSpec()).extract(getConfigFiles(), getClean(), getLogger());
     }
 
     public String getConfig() {
@@ -19,12 +19,20 @@
  */
 package net.minecraftforge.gradle.tasks;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import net.minecraftforge.gradle.common.Constants;
+import net.minecraftforge.gradle.util.JavaSignatures;
+import net.minecraftforge.gradle.util.PartitionInputSupplier;
 import net.minecraftforge.gradle.util.SequencedInputSupplier;
 import net.minecraftforge.gradle.util.SourceDirSetSupplier;
 import net.minecraftforge.srg2source.ast.RangeExtractor;
@@ -40,9 +48,16 @@ import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.SkipWhenEmpty;
 import org.gradle.api.tasks.TaskAction;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
 
 public class ExtractS2SRangeTask extends DefaultTask {
+    private static final String RANGE_START = "startProcessing \"";
+    private static final String RANGE_END = "endProcessing";
+
     @InputFiles
     private final List<Object> libs = Lists.newArrayList();
 
@@ -73,17 +88,166 @@ public class ExtractS2SRangeTask extends DefaultTask {
         generateRangeMap(inSup, rangemap);
     }
 
-    private void generateRangeMap(InputSupplier inSup, File rangeMap) {
-        RangeExtractor extractor = new RangeExtractor();
+    /**
+     * Only parses the files that changed since the last run.
+     * Range data is cached per file, keyed by the file content, the declarations of every file in the set and the
+     * library classpath. The ranges of one file depend on what the others declare, but not on their method bodies,
+     * so an edit inside a body only re-parses that file while a changed signature re-parses everything.
+     * The full range map is then put together from the cached blocks.
+     */
+    private void generateRangeMap(InputSupplier inSup, File rangeMap) throws IOException {
+        // shared with the other rangemap tasks, they often extract the same sources
+        File cacheDir = new File(getTemporaryDir().getParentFile(), "s2sRanges");
+        cacheDir.mkdirs();
+
+        String libs = getLibsFingerprint();
+
+        List<String> paths = Lists.newArrayList(inSup.gatherAll(".java"));
+        Collections.sort(paths);
+
+        Map<String, String> hashes = Maps.newLinkedHashMap();
+        StringBuilder signatures = new StringBuilder();
+        for (String path : paths) {
+            try (InputStream stream = inSup.getInput(path)) {
+                if (stream == null)
+                    continue;
+                byte[] data = ByteStreams.toByteArray(stream);
+                hashes.put(path, Constants.hash(data));
+                signatures.append(path).append('|').append(Constants.hash(JavaSignatures.strip(new String(data, Constants.CHARSET)))).append('\n');
+            }
+        }
+        String declared = Constants.hash(signatures.toString());
+
+        Map<String, File> fragments = Maps.newLinkedHashMap();
+        Map<String, Integer> partitions = Maps.newHashMap();
+        int changed = 0;
+        for (Map.Entry<String, String> e : hashes.entrySet()) {
+            String path = e.getKey();
+            File fragment = new File(cacheDir, Constants.hash(path + "|" + e.getValue() + "|" + declared + "|" + libs) + ".range");
+            fragments.put(path, fragment);
+            if (fragment.exists()) {
+                partitions.put(path, 1);
+            } else {
+                partitions.put(path, 0);
+                changed++;
+            }
+        }
+
+        boolean assemble = false;
+        if (changed > 0 && changed < fragments.size()) {
+            getLogger().info("Extracting ranges for {} of {} files", changed, fragments.size());
 
-        for (File f : getLibs()) {
-            //System.out.println("lib: "+f);
-            extractor.addLibs(f);
+            // the unchanged files are still visible to the extractor, they just arent parsed.
+            File partial = new File(getTemporaryDir(), "partial.txt");
+            extractRanges(new PartitionInputSupplier(inSup, partitions, 0), partial);
+            splitRanges(partial, fragments);
+            partial.delete();
+
+            assemble = true;
+            for (File fragment : fragments.values())
+                assemble &= fragment.exists();
         }
 
+        if (assemble || changed == 0) {
+            // put the full map back together
+            try (BufferedWriter out = Files.newWriter(rangeMap, Charsets.UTF_8)) {
+                for (File fragment : fragments.values())
+                    Files.asCharSource(fragment, Charsets.UTF_8).copyTo(out);
+            }
+        } else {
+            // first run, or the extractor named files differently than the supplier
+            extractRanges(inSup, rangeMap);
+            splitRanges(rangeMap, fragments);
+        }
+
+        // drop the blocks this task used last time but doesnt anymore
+        File usedList = new File(getTemporaryDir(), "ranges.lst");
+        List<String> used = Lists.newArrayList();
+        for (File f : fragments.values())
+            used.add(f.getName());
+
+        if (usedList.exists()) {
+            for (String name : Files.readLines(usedList, Charsets.UTF_8)) {
+                if (!used.contains(name))
+                    new File(cacheDir, name).delete();
+            }
+        }
+        Files.asCharSink(usedList, Charsets.UTF_8).writeLines(used);
+    }
+
+    private void splitRanges(File rangeMap, Map<String, File> fragments) throws IOException {
+        try (BufferedReader reader = Files.newReader(rangeMap, Charsets.UTF_8)) {
+            BufferedWriter current = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RANGE_START)) {
+                    int end = line.indexOf('"', RANGE_START.length());
+                    File fragment = end == -1 ? null : fragments.get(line.substring(RANGE_START.length(), end));
+                    if (current != null)
+                        current.close();
+                    current = fragment == null ? null : Files.newWriter(fragment, Charsets.UTF_8);
+                }
+
+                if (current != null) {
+                    current.write(line);
+                    current.newLine();
+
+                    if (line.startsWith(RANGE_END)) {
+                        current.close();
+                        current = null;
+                    }
+                }
+            }
+
+            if (current != null)
+                current.close();
+        }
+    }
+
+    private String getLibsFingerprint() {
+        StringBuilder buf = new StringBuilder();
+        FileCollection libs = getLibs();
+        if (libs != null) {
+            for (File f : libs)
+                appendFingerprint(buf, f, f.getAbsolutePath());
+        }
+        return Constants.hash(buf.toString());
+    }
+
+    /**
+     * Directories are walked, their own timestamp says nothing about the class files inside.
+     */
+    private static void appendFingerprint(StringBuilder buf, File file, String name) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children == null)
+                return;
+            Arrays.sort(children);
+            for (File child : children)
+                appendFingerprint(buf, child, name + "/" + child.getName());
+        } else if (file.isFile()) {
+            if (file.getName().endsWith(".jar") || file.getName().endsWith(".zip"))
+                buf.append(name).append('|').append(file.length()).append('|').append(file.lastModified()).append('\n');
+            else
+                buf.append(name).append('|').append(Constants.hash(file)).append('\n');
+        } else {
+            buf.append(name).append("|missing\n");
+        }
+    }
+
+    /**
+     * A new extractor every time. Its library list is only a list of paths, JDT builds its environment from it on
+     * every parse, so there is nothing worth keeping between runs, and the source and logger it holds are per run.
+     */
+    private void extractRanges(InputSupplier inSup, File rangeMap) {
+        RangeExtractor extractor = new RangeExtractor();
         extractor.setSrc(inSup);
 
-        //extractor.addLibs(getLibs().getAsPath()).setSrc(inSup);
+        FileCollection libs = getLibs();
+        if (libs != null) {
+            for (File f : libs)
+                extractor.addLibs(f);
+        }
 
         PrintStream stream = new PrintStream(Constants.getTaskLogStream(getProject(), this.getName() + ".log"));
         extractor.setOutLogger(stream);
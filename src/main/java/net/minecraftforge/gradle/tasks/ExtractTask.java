@@ -27,7 +27,7 @@ import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
-import net.minecraftforge.gradle.util.ExtractionVisitor;
+import net.minecraftforge.gradle.util.ZipExtractor;
 import net.minecraftforge.gradle.util.caching.Cached;
 import net.minecraftforge.gradle.util.caching.CachedTask;
 
@@ -59,28 +59,8 @@ public class ExtractTask extends CachedTask implements PatternFilterable {
 
     @TaskAction
     public void doTask() throws IOException {
-        File dest = getDestinationDir();
-
-        if (shouldClean()) {
-            delete(dest);
-        }
-
-        dest.mkdirs();
-
-        ExtractionVisitor visitor = new ExtractionVisitor(dest, isIncludeEmptyDirs(), patternSet.getAsSpec());
-
-        for (File source : getSourcePaths()) {
-            getLogger().debug("Extracting: {}", source);
-            getProject().zipTree(source).visit(visitor);
-        }
-    }
-
-    private void delete(File f) {
-        if (f.isDirectory()) {
-            for (File c : f.listFiles())
-                delete(c);
-        }
-        f.delete();
+        // only stale files are removed when cleaning, anything that still matches is kept
+        new ZipExtractor(getDestinationDir(), isIncludeEmptyDirs(), patternSet.getAsSpec()).extract(getSourcePaths(), shouldClean(), getLogger());
     }
 
     public ExtractTask from(Object... paths) {
@@ -19,14 +19,18 @@
  */
 package net.minecraftforge.gradle.tasks;
 
-import au.com.bytecode.opencsv.CSVReader;
 import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.io.Files;
 import net.minecraftforge.gradle.common.Constants;
 import net.minecraftforge.gradle.util.caching.Cached;
 import net.minecraftforge.gradle.util.caching.CachedTask;
 import net.minecraftforge.gradle.util.delayed.DelayedFile;
+import net.minecraftforge.gradle.util.mcp.McpMappings;
 import net.minecraftforge.srg2source.rangeapplier.MethodData;
 import net.minecraftforge.srg2source.rangeapplier.SrgContainer;
 import org.gradle.api.file.FileCollection;
@@ -37,14 +41,22 @@ import org.gradle.api.tasks.TaskAction;
 
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.OutputStreamWriter;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class GenSrgs extends CachedTask {
+    private static final int BUFFER_SIZE = 1 << 20;
+
     @InputFiles
     private final LinkedList<File> extraExcs = new LinkedList<>();
     @InputFiles
@@ -67,36 +79,95 @@ public class GenSrgs extends CachedTask {
     private DelayedFile srgExc;
     private DelayedFile mcpExc;
 
-    private static void readCSVs(File methodCsv, File fieldCsv, Map<String, String> methodMap, Map<String, String> fieldMap) throws IOException {
+    @TaskAction
+    public void doTask() throws IOException, InterruptedException {
+        // csv data.  SRG -> MCP
+        McpMappings mappings = McpMappings.load(getMethodsCsv(), getFieldsCsv());
+
+        // only rewrite the outputs whose inputs actually changed
+        List<File> srgFiles = Lists.newArrayList(getInSrg(), getMethodsCsv(), getFieldsCsv());
+        srgFiles.addAll(getExtraSrgs().getFiles());
+        List<File> excFiles = Lists.newArrayList(getInExc(), getMethodsCsv());
+        excFiles.addAll(getExtraSrgs().getFiles());
+        excFiles.addAll(getExtraExcs().getFiles());
+
+        String srgInputs = hashInputs(srgFiles);
+        String excInputs = hashInputs(excFiles);
+
+        Map<File, SrgType> staleSrgs = Maps.newLinkedHashMap();
+        addIfStale(staleSrgs, getNotchToSrg(), srgInputs, SrgType.NOTCH_TO_SRG);
+        addIfStale(staleSrgs, getNotchToMcp(), srgInputs, SrgType.NOTCH_TO_MCP);
+        addIfStale(staleSrgs, getSrgToMcp(), srgInputs, SrgType.SRG_TO_MCP);
+        addIfStale(staleSrgs, getMcpToSrg(), srgInputs, SrgType.MCP_TO_SRG);
+        addIfStale(staleSrgs, getMcpToNotch(), srgInputs, SrgType.MCP_TO_NOTCH);
+        boolean srgExcStale = isStale(getSrgExc(), excInputs);
+        boolean mcpExcStale = isStale(getMcpExc(), excInputs);
+
+        List<Output> outputs = Lists.newArrayList();
+
+        // Do SRG stuff
+        if (!staleSrgs.isEmpty() || srgExcStale) {
+            SrgContainer inSrg = new SrgContainer().readSrg(getInSrg());
+            Map<String, String> excRemap = readExtraSrgs(getExtraSrgs(), inSrg);
+
+            if (!staleSrgs.isEmpty()) {
+                SrgNames names = new SrgNames(inSrg, mappings);
+                for (Entry<File, SrgType> e : staleSrgs.entrySet())
+                    outputs.add(new SrgOutput(e.getKey(), srgInputs, e.getValue(), names));
+            }
 
-        // read methods
-        CSVReader csvReader = Constants.getReader(methodCsv);
-        for (String[] s : csvReader.readAll()) {
-            methodMap.put(s[0], s[1]);
+            if (srgExcStale)
+                outputs.add(new SrgExcOutput(getSrgExc(), excInputs, getInExc(), getExtraExcs(), excRemap));
         }
 
-        // read fields
-        csvReader = Constants.getReader(fieldCsv);
-        for (String[] s : csvReader.readAll()) {
-            fieldMap.put(s[0], s[1]);
+        // do EXC stuff
+        if (mcpExcStale)
+            outputs.add(new McpExcOutput(getMcpExc(), excInputs, getInExc(), getExtraExcs(), mappings));
+
+        if (outputs.isEmpty()) {
+            getLogger().info("All SRGs and EXCs are up to date");
+            return;
         }
+
+        writeOutputs(outputs);
     }
 
-    @TaskAction
-    public void doTask() throws IOException {
-        // csv data.  SRG -> MCP
-        HashMap<String, String> methods = new HashMap<>();
-        HashMap<String, String> fields = new HashMap<>();
-        readCSVs(getMethodsCsv(), getFieldsCsv(), methods, fields);
+    private void writeOutputs(List<Output> outputs) throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(outputs.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            for (Future<File> future : executor.invokeAll(outputs)) {
+                try {
+                    getLogger().debug("Wrote {}", future.get());
+                } catch (ExecutionException e) {
+                    Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+                    Throwables.throwIfUnchecked(e.getCause());
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-        // Do SRG stuff
-        SrgContainer inSrg = new SrgContainer().readSrg(getInSrg());
-        Map<String, String> excRemap = readExtraSrgs(getExtraSrgs(), inSrg);
-        writeOutSrgs(inSrg, methods, fields);
+    private static String hashInputs(List<File> files) {
+        StringBuilder buf = new StringBuilder();
+        for (File f : files)
+            buf.append(f.getAbsolutePath()).append('=').append(Constants.hash(f)).append('\n');
+        return buf.toString();
+    }
 
-        // do EXC stuff
-        writeOutExcs(excRemap, methods);
+    private static File getInputsFile(File output) {
+        return new File(output.getParentFile(), output.getName() + ".inputs");
+    }
 
+    private static boolean isStale(File output, String inputs) throws IOException {
+        File inputsFile = getInputsFile(output);
+        return !output.exists() || !inputsFile.exists() || !inputs.equals(Files.asCharSource(inputsFile, Charsets.UTF_8).read());
+    }
+
+    private static void addIfStale(Map<File, SrgType> stale, File output, String inputs, SrgType type) throws IOException {
+        if (isStale(output, inputs))
+            stale.put(output, type);
     }
 
     private Map<String, String> readExtraSrgs(FileCollection extras, SrgContainer inSrg) {
@@ -128,231 +199,6 @@ public class GenSrgs extends CachedTask {
         */
     }
 
-    private void writeOutSrgs(SrgContainer inSrg, Map<String, String> methods, Map<String, String> fields) throws IOException {
-        // ensure folders exist
-        Files.createParentDirs(getNotchToSrg());
-        Files.createParentDirs(getNotchToMcp());
-        Files.createParentDirs(getSrgToMcp());
-        Files.createParentDirs(getMcpToSrg());
-        Files.createParentDirs(getMcpToNotch());
-
-        // create streams
-        BufferedWriter notchToSrg = Files.newWriter(getNotchToSrg(), Charsets.UTF_8);
-        BufferedWriter notchToMcp = Files.newWriter(getNotchToMcp(), Charsets.UTF_8);
-        BufferedWriter srgToMcp = Files.newWriter(getSrgToMcp(), Charsets.UTF_8);
-        BufferedWriter mcpToSrg = Files.newWriter(getMcpToSrg(), Charsets.UTF_8);
-        BufferedWriter mcpToNotch = Files.newWriter(getMcpToNotch(), Charsets.UTF_8);
-
-        String line, temp, mcpName;
-        // packages
-        for (Entry<String, String> e : inSrg.packageMap.entrySet()) {
-            line = "PK: " + e.getKey() + " " + e.getValue();
-
-            // nobody cares about the packages.
-            notchToSrg.write(line);
-            notchToSrg.newLine();
-
-            notchToMcp.write(line);
-            notchToMcp.newLine();
-
-            // No package changes from MCP to SRG names
-            //srgToMcp.write(line);
-            //srgToMcp.newLine();
-
-            // No package changes from MCP to SRG names
-            //mcpToSrg.write(line);
-            //mcpToSrg.newLine();
-
-            // reverse!
-            mcpToNotch.write("PK: " + e.getValue() + " " + e.getKey());
-            mcpToNotch.newLine();
-        }
-
-        // classes
-        for (Entry<String, String> e : inSrg.classMap.entrySet()) {
-            line = "CL: " + e.getKey() + " " + e.getValue();
-
-            // same...
-            notchToSrg.write(line);
-            notchToSrg.newLine();
-
-            // SRG and MCP have the same class names
-            notchToMcp.write(line);
-            notchToMcp.newLine();
-
-            line = "CL: " + e.getValue() + " " + e.getValue();
-
-            // deobf: same classes on both sides.
-            srgToMcp.write("CL: " + e.getValue() + " " + e.getValue());
-            srgToMcp.newLine();
-
-            // reobf: same classes on both sides.
-            mcpToSrg.write("CL: " + e.getValue() + " " + e.getValue());
-            mcpToSrg.newLine();
-
-            // output is notch
-            mcpToNotch.write("CL: " + e.getValue() + " " + e.getKey());
-            mcpToNotch.newLine();
-        }
-
-        // fields
-        for (Entry<String, String> e : inSrg.fieldMap.entrySet()) {
-            line = "FD: " + e.getKey() + " " + e.getValue();
-
-            // same...
-            notchToSrg.write("FD: " + e.getKey() + " " + e.getValue());
-            notchToSrg.newLine();
-
-            temp = e.getValue().substring(e.getValue().lastIndexOf('/') + 1);
-            mcpName = e.getValue();
-            if (fields.containsKey(temp))
-                mcpName = mcpName.replace(temp, fields.get(temp));
-
-            // SRG and MCP have the same class names
-            notchToMcp.write("FD: " + e.getKey() + " " + mcpName);
-            notchToMcp.newLine();
-
-            // srg name -> mcp name
-            srgToMcp.write("FD: " + e.getValue() + " " + mcpName);
-            srgToMcp.newLine();
-
-            // mcp name -> srg name
-            mcpToSrg.write("FD: " + mcpName + " " + e.getValue());
-            mcpToSrg.newLine();
-
-            // output is notch
-            mcpToNotch.write("FD: " + mcpName + " " + e.getKey());
-            mcpToNotch.newLine();
-        }
-
-        // methods
-        for (Entry<MethodData, MethodData> e : inSrg.methodMap.entrySet()) {
-            line = "MD: " + e.getKey() + " " + e.getValue();
-
-            // same...
-            notchToSrg.write("MD: " + e.getKey() + " " + e.getValue());
-            notchToSrg.newLine();
-
-            temp = e.getValue().name.substring(e.getValue().name.lastIndexOf('/') + 1);
-            mcpName = e.getValue().toString();
-            if (methods.containsKey(temp))
-                mcpName = mcpName.replace(temp, methods.get(temp));
-
-            // SRG and MCP have the same class names
-            notchToMcp.write("MD: " + e.getKey() + " " + mcpName);
-            notchToMcp.newLine();
-
-            // srg name -> mcp name
-            srgToMcp.write("MD: " + e.getValue() + " " + mcpName);
-            srgToMcp.newLine();
-
-            // mcp name -> srg name
-            mcpToSrg.write("MD: " + mcpName + " " + e.getValue());
-            mcpToSrg.newLine();
-
-            // output is notch
-            mcpToNotch.write("MD: " + mcpName + " " + e.getKey());
-            mcpToNotch.newLine();
-        }
-
-        notchToSrg.flush();
-        notchToSrg.close();
-
-        notchToMcp.flush();
-        notchToMcp.close();
-
-        srgToMcp.flush();
-        srgToMcp.close();
-
-        mcpToSrg.flush();
-        mcpToSrg.close();
-
-        mcpToNotch.flush();
-        mcpToNotch.close();
-    }
-
-    private void writeOutExcs(Map<String, String> excRemap, Map<String, String> methods) throws IOException {
-        // ensure folders exist
-        Files.createParentDirs(getSrgExc());
-        Files.createParentDirs(getMcpExc());
-
-        // create streams
-        BufferedWriter srgOut = Files.newWriter(getSrgExc(), Charsets.UTF_8);
-        BufferedWriter mcpOut = Files.newWriter(getMcpExc(), Charsets.UTF_8);
-
-        // read and write existing lines
-        List<String> excLines = Files.readLines(getInExc(), Charsets.UTF_8);
-        String[] split;
-        for (String line : excLines) {
-            // its already in SRG names.
-            srgOut.write(line);
-            srgOut.newLine();
-
-            // remap MCP.
-
-            // split line up
-            split = line.split("=");
-            int sigIndex = split[0].indexOf('(');
-            int dotIndex = split[0].indexOf('.');
-
-            // not a method? wut?
-            if (sigIndex == -1 || dotIndex == -1) {
-                mcpOut.write(line);
-                mcpOut.newLine();
-                continue;
-            }
-
-            // get new name
-            String name = split[0].substring(dotIndex + 1, sigIndex);
-            if (methods.containsKey(name))
-                name = methods.get(name);
-
-            // write remapped line
-            mcpOut.write(split[0].substring(0, dotIndex) + "." + name + split[0].substring(sigIndex) + "=" + split[1]);
-            mcpOut.newLine();
-
-        }
-
-        for (File f : getExtraExcs()) {
-            List<String> lines = Files.readLines(f, Charsets.UTF_8);
-
-            for (String line : lines) {
-                // these are in MCP names
-                mcpOut.write(line);
-                mcpOut.newLine();
-
-                // remap SRG
-
-                // split line up
-                split = line.split("=");
-                int sigIndex = split[0].indexOf('(');
-                int dotIndex = split[0].indexOf('.');
-
-                // not a method? wut?
-                if (sigIndex == -1 || dotIndex == -1) {
-                    srgOut.write(line);
-                    srgOut.newLine();
-                    continue;
-                }
-
-                // get new name
-                String name = split[0].substring(dotIndex + 1, sigIndex);
-                if (excRemap.containsKey(name))
-                    name = excRemap.get(name);
-
-                // write remapped line
-                srgOut.write(split[0].substring(0, dotIndex) + name + split[0].substring(sigIndex) + "=" + split[1]);
-                srgOut.newLine();
-            }
-        }
-
-        srgOut.flush();
-        srgOut.close();
-
-        mcpOut.flush();
-        mcpOut.close();
-    }
-
     public File getInSrg() {
         return inSrg.call();
     }
@@ -470,4 +316,240 @@ public class GenSrgs extends CachedTask {
     public void addExtraSrg(File file) {
         extraSrgs.add(file);
     }
+
+    /**
+     * Writes one output file, then records the hashes of the inputs it was generated from.
+     */
+    private static abstract class Output implements Callable<File> {
+        private final File file;
+        private final String inputs;
+
+        Output(File file, String inputs) {
+            this.file = file;
+            this.inputs = inputs;
+        }
+
+        abstract void write(BufferedWriter out) throws IOException;
+
+        @Override
+        public File call() throws IOException {
+            Files.createParentDirs(file);
+            try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), Charsets.UTF_8), BUFFER_SIZE)) {
+                write(out);
+            }
+            Files.asCharSink(getInputsFile(file), Charsets.UTF_8).write(inputs);
+            return file;
+        }
+    }
+
+    private static class SrgOutput extends Output {
+        private final SrgType type;
+        private final SrgNames names;
+
+        SrgOutput(File file, String inputs, SrgType type, SrgNames names) {
+            super(file, inputs);
+            this.type = type;
+            this.names = names;
+        }
+
+        @Override
+        void write(BufferedWriter out) throws IOException {
+            type.write(names, out);
+        }
+    }
+
+    private static class SrgExcOutput extends Output {
+        private final File inExc;
+        private final FileCollection extraExcs;
+        private final Map<String, String> excRemap;
+
+        SrgExcOutput(File file, String inputs, File inExc, FileCollection extraExcs, Map<String, String> excRemap) {
+            super(file, inputs);
+            this.inExc = inExc;
+            this.extraExcs = extraExcs;
+            this.excRemap = excRemap;
+        }
+
+        @Override
+        void write(BufferedWriter out) throws IOException {
+            // its already in SRG names.
+            for (String line : Files.readLines(inExc, Charsets.UTF_8)) {
+                out.write(line);
+                out.newLine();
+            }
+
+            // these are in MCP names
+            for (File f : extraExcs) {
+                for (String line : Files.readLines(f, Charsets.UTF_8)) {
+                    out.write(remapExcLine(line, Functions.forMap(excRemap, null)));
+                    out.newLine();
+                }
+            }
+        }
+    }
+
+    private static class McpExcOutput extends Output {
+        private final File inExc;
+        private final FileCollection extraExcs;
+        private final McpMappings mappings;
+
+        McpExcOutput(File file, String inputs, File inExc, FileCollection extraExcs, McpMappings mappings) {
+            super(file, inputs);
+            this.inExc = inExc;
+            this.extraExcs = extraExcs;
+            this.mappings = mappings;
+        }
+
+        @Override
+        void write(BufferedWriter out) throws IOException {
+            // remap MCP.
+            for (String line : Files.readLines(inExc, Charsets.UTF_8)) {
+                out.write(remapExcLine(line, mappings::getMethod));
+                out.newLine();
+            }
+
+            // already in MCP names
+            for (File f : extraExcs) {
+                for (String line : Files.readLines(f, Charsets.UTF_8)) {
+                    out.write(line);
+                    out.newLine();
+                }
+            }
+        }
+    }
+
+    private static String remapExcLine(String line, Function<String, String> names) {
+        // split line up
+        String[] split = line.split("=");
+        int sigIndex = split[0].indexOf('(');
+        int dotIndex = split[0].indexOf('.');
+
+        // not a method? wut?
+        if (sigIndex == -1 || dotIndex == -1)
+            return line;
+
+        // get new name
+        String mapped = names.apply(split[0].substring(dotIndex + 1, sigIndex));
+        if (mapped == null)
+            return line;
+
+        return split[0].substring(0, dotIndex + 1) + mapped + split[0].substring(sigIndex) + "=" + split[1];
+    }
+
+    /**
+     * Every name the SRG outputs need, split and remapped once up front and shared read-only between the writers.
+     */
+    private static final class SrgNames {
+        final String[] pkgNotch, pkgSrg;
+        final String[] clsNotch, clsSrg;
+        final String[] fdNotch, fdSrg, fdMcp;
+        final String[] mdNotch, mdSrg, mdMcp;
+
+        SrgNames(SrgContainer inSrg, McpMappings mappings) {
+            int i = 0;
+            pkgNotch = new String[inSrg.packageMap.size()];
+            pkgSrg = new String[pkgNotch.length];
+            for (Entry<String, String> e : inSrg.packageMap.entrySet()) {
+                pkgNotch[i] = e.getKey();
+                pkgSrg[i++] = e.getValue();
+            }
+
+            i = 0;
+            clsNotch = new String[inSrg.classMap.size()];
+            clsSrg = new String[clsNotch.length];
+            for (Entry<String, String> e : inSrg.classMap.entrySet()) {
+                clsNotch[i] = e.getKey();
+                clsSrg[i++] = e.getValue();
+            }
+
+            i = 0;
+            fdNotch = new String[inSrg.fieldMap.size()];
+            fdSrg = new String[fdNotch.length];
+            fdMcp = new String[fdNotch.length];
+            for (Entry<String, String> e : inSrg.fieldMap.entrySet()) {
+                String srg = e.getValue();
+                int split = srg.lastIndexOf('/') + 1;
+                String mapped = mappings.getField(srg.substring(split));
+
+                fdNotch[i] = e.getKey();
+                fdSrg[i] = srg;
+                fdMcp[i++] = mapped == null ? srg : srg.substring(0, split) + mapped;
+            }
+
+            i = 0;
+            mdNotch = new String[inSrg.methodMap.size()];
+            mdSrg = new String[mdNotch.length];
+            mdMcp = new String[mdNotch.length];
+            for (Entry<MethodData, MethodData> e : inSrg.methodMap.entrySet()) {
+                MethodData srg = e.getValue();
+                int split = srg.name.lastIndexOf('/') + 1;
+                String mapped = mappings.getMethod(srg.name.substring(split));
+
+                mdNotch[i] = e.getKey().toString();
+                mdSrg[i] = srg.toString();
+                mdMcp[i++] = mapped == null ? mdSrg[i - 1] : srg.name.substring(0, split) + mapped + " " + srg.sig;
+            }
+        }
+    }
+
+    private enum SrgType {
+        NOTCH_TO_SRG {
+            @Override
+            void write(SrgNames n, BufferedWriter out) throws IOException {
+                writeLines(out, "PK: ", n.pkgNotch, n.pkgSrg);
+                writeLines(out, "CL: ", n.clsNotch, n.clsSrg);
+                writeLines(out, "FD: ", n.fdNotch, n.fdSrg);
+                writeLines(out, "MD: ", n.mdNotch, n.mdSrg);
+            }
+        },
+        NOTCH_TO_MCP {
+            @Override
+            void write(SrgNames n, BufferedWriter out) throws IOException {
+                // SRG and MCP have the same class names
+                writeLines(out, "PK: ", n.pkgNotch, n.pkgSrg);
+                writeLines(out, "CL: ", n.clsNotch, n.clsSrg);
+                writeLines(out, "FD: ", n.fdNotch, n.fdMcp);
+                writeLines(out, "MD: ", n.mdNotch, n.mdMcp);
+            }
+        },
+        SRG_TO_MCP {
+            @Override
+            void write(SrgNames n, BufferedWriter out) throws IOException {
+                // No package changes from MCP to SRG names, same classes on both sides.
+                writeLines(out, "CL: ", n.clsSrg, n.clsSrg);
+                writeLines(out, "FD: ", n.fdSrg, n.fdMcp);
+                writeLines(out, "MD: ", n.mdSrg, n.mdMcp);
+            }
+        },
+        MCP_TO_SRG {
+            @Override
+            void write(SrgNames n, BufferedWriter out) throws IOException {
+                writeLines(out, "CL: ", n.clsSrg, n.clsSrg);
+                writeLines(out, "FD: ", n.fdMcp, n.fdSrg);
+                writeLines(out, "MD: ", n.mdMcp, n.mdSrg);
+            }
+        },
+        MCP_TO_NOTCH {
+            @Override
+            void write(SrgNames n, BufferedWriter out) throws IOException {
+                // reverse!
+                writeLines(out, "PK: ", n.pkgSrg, n.pkgNotch);
+                writeLines(out, "CL: ", n.clsSrg, n.clsNotch);
+                writeLines(out, "FD: ", n.fdMcp, n.fdNotch);
+                writeLines(out, "MD: ", n.mdMcp, n.mdNotch);
+            }
+        };
+
+        abstract void write(SrgNames names, BufferedWriter out) throws IOException;
+
+        private static void writeLines(BufferedWriter out, String type, String[] from, String[] to) throws IOException {
+            for (int i = 0; i < from.length; i++) {
+                out.write(type);
+                out.write(from[i]);
+                out.write(' ');
+                out.write(to[i]);
+                out.newLine();
+            }
+        }
+    }
 }
@@ -29,14 +29,12 @@ import java.util.regex.Pattern;
 import net.minecraftforge.gradle.common.Constants;
 import net.minecraftforge.gradle.util.delayed.DelayedFile;
 import net.minecraftforge.gradle.util.mcp.JavadocAdder;
+import net.minecraftforge.gradle.util.mcp.McpMappings;
 
 import org.gradle.api.tasks.InputFile;
 
-import au.com.bytecode.opencsv.CSVReader;
-
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
-import com.google.common.collect.Maps;
 
 public class RemapSources extends AbstractEditJarTask {
     @InputFile
@@ -50,11 +48,7 @@ public class RemapSources extends AbstractEditJarTask {
 
     private boolean addsJavadocs = true;
 
-    private final Map<String, String> methods = Maps.newHashMap();
-    private final Map<String, String> methodDocs = Maps.newHashMap();
-    private final Map<String, String> fields = Maps.newHashMap();
-    private final Map<String, String> fieldDocs = Maps.newHashMap();
-    private final Map<String, String> params = Maps.newHashMap();
+    private McpMappings mappings;
 
     private static final Pattern SRG_FINDER = Pattern.compile("func_[0-9]+_[a-zA-Z_]+|field_[0-9]+_[a-zA-Z_]+|p_[\\w]+_\\d+_\\b");
     private static final Pattern METHOD = Pattern.compile("^((?: {4})+|\\t+)(?:[\\w$.\\[\\]]+ )+(func_[0-9]+_[a-zA-Z_]+)\\(");
@@ -62,25 +56,8 @@ public class RemapSources extends AbstractEditJarTask {
 
     @Override
     public void doStuffBefore() throws Exception {
-        // read CSV files
-        CSVReader reader = Constants.getReader(getMethodsCsv());
-        for (String[] s : reader.readAll()) {
-            methods.put(s[0], s[1]);
-            if (!s[3].isEmpty() && addsJavadocs)
-                methodDocs.put(s[0], s[3]);
-        }
-
-        reader = Constants.getReader(getFieldsCsv());
-        for (String[] s : reader.readAll()) {
-            fields.put(s[0], s[1]);
-            if (!s[3].isEmpty() && addsJavadocs)
-                fieldDocs.put(s[0], s[3]);
-        }
-
-        reader = Constants.getReader(getParamsCsv());
-        for (String[] s : reader.readAll()) {
-            params.put(s[0], s[1]);
-        }
+        // read CSV files, or reuse them if another task already did
+        mappings = McpMappings.load(getMethodsCsv(), getFieldsCsv(), getParamsCsv());
     }
 
     @Override
@@ -107,7 +84,7 @@ public class RemapSources extends AbstractEditJarTask {
         // methods
         Matcher matcher = METHOD.matcher(line);
         if (matcher.find()) {
-            String javadoc = methodDocs.get(matcher.group(2));
+            String javadoc = mappings.getMethodDoc(matcher.group(2));
             if (!Strings.isNullOrEmpty(javadoc)) {
                 insetAboveAnnotations(newLines, JavadocAdder.buildJavadoc(matcher.group(1), javadoc, true));
             }
@@ -119,7 +96,7 @@ public class RemapSources extends AbstractEditJarTask {
         // fields
         matcher = FIELD.matcher(line);
         if (matcher.find()) {
-            String javadoc = fieldDocs.get(matcher.group(2));
+            String javadoc = mappings.getFieldDoc(matcher.group(2));
             if (!Strings.isNullOrEmpty(javadoc)) {
                 insetAboveAnnotations(newLines, JavadocAdder.buildJavadoc(matcher.group(1), javadoc, false));
             }
@@ -142,11 +119,11 @@ public class RemapSources extends AbstractEditJarTask {
             String find = matcher.group();
 
             if (find.startsWith("p_"))
-                find = params.get(find);
+                find = mappings.getParam(find);
             else if (find.startsWith("func_"))
-                find = methods.get(find);
+                find = mappings.getMethod(find);
             else if (find.startsWith("field_"))
-                find = fields.get(find);
+                find = mappings.getField(find);
 
             if (find == null)
                 find = matcher.group();
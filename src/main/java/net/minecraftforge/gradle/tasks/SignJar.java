@@ -20,14 +20,14 @@
 package net.minecraftforge.gradle.tasks;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.io.ByteStreams;
 import groovy.lang.Closure;
-import groovy.util.MapEntry;
+import net.minecraftforge.gradle.util.RawZipOutput;
+import net.minecraftforge.gradle.util.ZipEntryElement;
+import net.minecraftforge.gradle.util.ZipIndex;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.file.FileTreeElement;
-import org.gradle.api.file.FileVisitDetails;
-import org.gradle.api.file.FileVisitor;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFile;
@@ -37,14 +37,9 @@ import org.gradle.api.tasks.util.PatternFilterable;
 import org.gradle.api.tasks.util.PatternSet;
 
 import java.io.*;
-import java.nio.file.Files;
-import java.util.Collections;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
-import java.util.jar.JarOutputStream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 import static net.minecraftforge.gradle.common.Constants.resolveString;
 
@@ -68,105 +63,65 @@ public class SignJar extends DefaultTask implements PatternFilterable {
 
     @TaskAction
     public void doTask() throws IOException {
-        final Map<String, Entry<byte[], Long>> ignoredStuff = Maps.newHashMap();
+        final List<ZipIndex.Entry> ignoredStuff = Lists.newArrayList();
         File input = getInputFile();
         File toSign = new File(getTemporaryDir(), input.getName() + ".unsigned.tmp");
         File signed = new File(getTemporaryDir(), input.getName() + ".signed.tmp");
         File output = getOutputFile();
 
-        // load in input jar, and create temp jar
-        processInputJar(input, toSign, ignoredStuff);
+        try (ZipIndex inputIndex = new ZipIndex(input)) {
+            // load in input jar, and create temp jar
+            processInputJar(inputIndex, toSign, ignoredStuff);
 
-        // SIGN!
-        Map<String, Object> map = Maps.newHashMap();
-        map.put("alias", getAlias());
-        map.put("storePass", getStorePass());
-        map.put("jar", toSign.getAbsolutePath());
-        map.put("signedJar", signed.getAbsolutePath());
+            // SIGN!
+            Map<String, Object> map = Maps.newHashMap();
+            map.put("alias", getAlias());
+            map.put("storePass", getStorePass());
+            map.put("jar", toSign.getAbsolutePath());
+            map.put("signedJar", signed.getAbsolutePath());
 
-        if (!Strings.isNullOrEmpty(getKeyPass()))
-            map.put("keypass", getKeyPass());
-        if (!Strings.isNullOrEmpty(getKeyStore()))
-            map.put("keyStore", getKeyStore());
+            if (!Strings.isNullOrEmpty(getKeyPass()))
+                map.put("keypass", getKeyPass());
+            if (!Strings.isNullOrEmpty(getKeyStore()))
+                map.put("keyStore", getKeyStore());
 
-        getProject().getAnt().invokeMethod("signjar", map);
+            getProject().getAnt().invokeMethod("signjar", map);
 
-        // write out
-        writeOutputJar(signed, output, ignoredStuff);
+            // write out
+            writeOutputJar(signed, output, inputIndex, ignoredStuff);
+        }
     }
 
-    private void processInputJar(File inputJar, File toSign, final Map<String, Entry<byte[], Long>> unsigned) throws IOException {
-        final Spec<FileTreeElement> spec = patternSet.getAsSpec();
+    private void processInputJar(ZipIndex input, File toSign, List<ZipIndex.Entry> unsigned) throws IOException {
+        Spec<FileTreeElement> spec = patternSet.getAsSpec();
 
         toSign.getParentFile().mkdirs();
-        final JarOutputStream outs = new JarOutputStream(new BufferedOutputStream(Files.newOutputStream(toSign.toPath())));
-
-        getProject().zipTree(inputJar).visit(new FileVisitor() {
-
-            @Override
-            public void visitDir(FileVisitDetails details) {
-                try {
-                    String path = details.getPath();
-                    ZipEntry entry = new ZipEntry(path.endsWith("/") ? path : path + "/");
-                    outs.putNextEntry(entry);
-                } catch (IOException e) {
-                    getProject().getLogger().error("error while visit zip entry", e);
-                }
-            }
-
-            @Override
-            @SuppressWarnings("unchecked")
-            public void visitFile(FileVisitDetails details) {
-                try {
-                    if (spec.isSatisfiedBy(details)) {
-                        ZipEntry entry = new ZipEntry(details.getPath());
-                        entry.setTime(details.getLastModified());
-                        outs.putNextEntry(entry);
-                        details.copyTo(outs);
-                        outs.closeEntry();
-                    } else {
-                        InputStream stream = details.open();
-                        unsigned.put(details.getPath(), new MapEntry(ByteStreams.toByteArray(stream), details.getLastModified()));
-                        stream.close();
-                    }
-                } catch (IOException e) {
-                    getProject().getLogger().error("error while visit zip entry", e);
+        try (RawZipOutput outs = new RawZipOutput(toSign)) {
+            for (ZipIndex.Entry entry : input.getEntries()) {
+                if (entry.isDirectory()) {
+                    outs.putDirectory(entry.getName(), entry.getTime());
+                } else if (spec.isSatisfiedBy(new ZipEntryElement(input, entry))) {
+                    outs.copy(input, entry);
+                } else {
+                    // copied straight from the input once signing is done
+                    unsigned.add(entry);
                 }
             }
-
-        });
-
-        outs.close();
+        }
     }
 
-    private void writeOutputJar(File signedJar, File outputJar, Map<String, Entry<byte[], Long>> unsigned) throws IOException {
+    private void writeOutputJar(File signedJar, File outputJar, ZipIndex input, List<ZipIndex.Entry> unsigned) throws IOException {
         outputJar.getParentFile().mkdirs();
 
-        JarOutputStream outs = new JarOutputStream(new BufferedOutputStream(Files.newOutputStream(outputJar.toPath())));
-
-        ZipFile base = new ZipFile(signedJar);
-        for (ZipEntry e : Collections.list(base.entries())) {
-            if (e.isDirectory()) {
-                outs.putNextEntry(e);
-            } else {
-                ZipEntry n = new ZipEntry(e.getName());
-                n.setTime(e.getTime());
-                outs.putNextEntry(n);
-                ByteStreams.copy(base.getInputStream(e), outs);
-                outs.closeEntry();
+        try (ZipIndex base = new ZipIndex(signedJar); RawZipOutput outs = new RawZipOutput(outputJar)) {
+            for (ZipIndex.Entry e : base.getEntries()) {
+                outs.copy(base, e);
             }
-        }
-        base.close();
-
-        for (Map.Entry<String, Map.Entry<byte[], Long>> e : unsigned.entrySet()) {
-            ZipEntry n = new ZipEntry(e.getKey());
-            n.setTime(e.getValue().getValue());
-            outs.putNextEntry(n);
-            outs.write(e.getValue().getKey());
-            outs.closeEntry();
-        }
 
-        outs.close();
+            for (ZipIndex.Entry e : unsigned) {
+                outs.copy(input, e);
+            }
+        }
     }
 
     @Override
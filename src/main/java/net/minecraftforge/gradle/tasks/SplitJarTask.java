@@ -23,24 +23,20 @@ import groovy.lang.Closure;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.util.Set;
-import java.util.jar.JarEntry;
-import java.util.jar.JarOutputStream;
 
+import net.minecraftforge.gradle.util.RawZipOutput;
+import net.minecraftforge.gradle.util.ZipEntryElement;
+import net.minecraftforge.gradle.util.ZipIndex;
 import net.minecraftforge.gradle.util.caching.Cached;
 import net.minecraftforge.gradle.util.caching.CachedTask;
 
 import org.gradle.api.file.FileTreeElement;
-import org.gradle.api.file.FileVisitDetails;
-import org.gradle.api.file.FileVisitor;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.*;
 import org.gradle.api.tasks.util.PatternFilterable;
 import org.gradle.api.tasks.util.PatternSet;
 
-import com.google.common.base.Throwables;
-
 public class SplitJarTask extends CachedTask implements PatternFilterable {
     @InputFile
     private Object inJar;
@@ -73,41 +69,20 @@ public class SplitJarTask extends CachedTask implements PatternFilterable {
         out1.getParentFile().mkdirs();
         out2.getParentFile().mkdirs();
 
-        // begin reading jar
-        final JarOutputStream zout1 = new JarOutputStream(Files.newOutputStream(out1.toPath()));
-        final JarOutputStream zout2 = new JarOutputStream(Files.newOutputStream(out2.toPath()));
-
-        getProject().zipTree(input).visit(new FileVisitor() {
-
-            @Override
-            public void visitDir(FileVisitDetails details) {
-                // ignore directories
-            }
+        // one pass over the central directory, nothing is changed so entries are copied still compressed
+        try (ZipIndex index = new ZipIndex(input); RawZipOutput zout1 = new RawZipOutput(out1); RawZipOutput zout2 = new RawZipOutput(out2)) {
+            for (ZipIndex.Entry entry : index.getEntries()) {
+                if (entry.isDirectory()) {
+                    continue; // ignore directories
+                }
 
-            @Override
-            public void visitFile(FileVisitDetails details) {
-                JarEntry entry = new JarEntry(details.getPath());
-                entry.setSize(details.getSize());
-                entry.setTime(details.getLastModified());
-
-                try {
-                    if (spec.isSatisfiedBy(details)) {
-                        zout1.putNextEntry(entry);
-                        details.copyTo(zout1);
-                        zout1.closeEntry();
-                    } else {
-                        zout2.putNextEntry(entry);
-                        details.copyTo(zout2);
-                        zout2.closeEntry();
-                    }
-                } catch (IOException e) {
-                    Throwables.throwIfUnchecked(e);
+                if (spec.isSatisfiedBy(new ZipEntryElement(index, entry))) {
+                    zout1.copy(index, entry);
+                } else {
+                    zout2.copy(index, entry);
                 }
             }
-        });
-
-        zout1.close();
-        zout2.close();
+        }
     }
 
     public File getInJar() {
@@ -32,4 +32,14 @@ public interface ReobfTransformer extends Serializable {
      * @return The modified class bytes
      */
     byte[] transform(byte[] data);
+
+    /**
+     * Whether {@link #transform(byte[])} may be called for several classes at once.
+     * Thread safe transformers are run on all cores, the others one class at a time.
+     *
+     * @return true if this transformer is thread safe
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
 }
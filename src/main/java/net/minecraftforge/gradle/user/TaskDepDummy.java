@@ -19,13 +19,20 @@
  */
 package net.minecraftforge.gradle.user;
 
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.TaskAction;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 
@@ -33,8 +40,16 @@ public class TaskDepDummy extends DefaultTask {
     @Internal
     private Object outputFile;
 
+    // dependencies to deobfuscate before the dummy jar is made
+    private final List<Object[]> deobfDeps = Lists.newArrayList();
+    private Object methodCsv;
+    private Object fieldCsv;
+    private Object cacheDir;
+
     @TaskAction
     public void makeEmptyJar() throws IOException {
+        deobfDependencies();
+
         File out = getOutputFile();
         out.getParentFile().mkdirs();
 
@@ -46,6 +61,102 @@ public class TaskDepDummy extends DefaultTask {
         stream.close();
     }
 
+    /**
+     * Deobfuscates every registered dependency at once.
+     * The jars are processed concurrently, and their classes share one pool of workers.
+     */
+    private void deobfDependencies() throws IOException {
+        final List<Object[]> stale = Lists.newArrayList();
+        for (Object[] dep : deobfDeps) {
+            if (!isUpToDate(getProject().file(dep[0]), getProject().file(dep[1])))
+                stale.add(dep);
+        }
+
+        if (stale.isEmpty())
+            return;
+
+        getLogger().lifecycle("Deobfuscating {} dependencies", stale.size());
+
+        final File methodCsv = getMethodCsv();
+        final File fieldCsv = getFieldCsv();
+        final File cacheDir = getCacheDir();
+
+        int cpus = Runtime.getRuntime().availableProcessors();
+        final ExecutorService classPool = Executors.newFixedThreadPool(cpus);
+        ExecutorService jarPool = Executors.newFixedThreadPool(Math.min(cpus, stale.size()));
+        try {
+            List<Future<?>> futures = Lists.newArrayList();
+            for (Object[] dep : stale) {
+                final File in = getProject().file(dep[0]);
+                final File out = getProject().file(dep[1]);
+                final String stamp = getStamp(in);
+                futures.add(jarPool.submit(() -> {
+                    TaskSingleDeobfBin.deobf(in, out, methodCsv, fieldCsv, cacheDir, classPool, getLogger());
+                    Files.write(getStampFile(out).toPath(), stamp.getBytes(StandardCharsets.UTF_8));
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures)
+                Futures.getChecked(future, IOException.class);
+        } finally {
+            jarPool.shutdownNow();
+            classPool.shutdownNow();
+        }
+    }
+
+    private boolean isUpToDate(File in, File out) throws IOException {
+        File stamp = getStampFile(out);
+        return out.isFile() && stamp.isFile() && getStamp(in).equals(new String(Files.readAllBytes(stamp.toPath()), StandardCharsets.UTF_8));
+    }
+
+    private String getStamp(File in) {
+        StringBuilder buf = new StringBuilder();
+        for (File f : new File[] { in, getMethodCsv(), getFieldCsv() })
+            buf.append(f.getAbsolutePath()).append('|').append(f.length()).append('|').append(f.lastModified()).append('\n');
+        return buf.toString();
+    }
+
+    private static File getStampFile(File out) {
+        return new File(out.getPath() + ".deobf");
+    }
+
+    public void addDeobfDep(Object inJar, Object outJar) {
+        deobfDeps.add(new Object[] { inJar, outJar });
+    }
+
+    @Internal
+    public boolean hasDeobfDeps() {
+        return !deobfDeps.isEmpty();
+    }
+
+    @Internal
+    public File getMethodCsv() {
+        return getProject().file(methodCsv);
+    }
+
+    public void setMethodCsv(Object methodCsv) {
+        this.methodCsv = methodCsv;
+    }
+
+    @Internal
+    public File getFieldCsv() {
+        return getProject().file(fieldCsv);
+    }
+
+    public void setFieldCsv(Object fieldCsv) {
+        this.fieldCsv = fieldCsv;
+    }
+
+    @Internal
+    public File getCacheDir() {
+        return cacheDir == null ? null : getProject().file(cacheDir);
+    }
+
+    public void setCacheDir(Object cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
     public File getOutputFile() {
         return getProject().file(outputFile);
     }
@@ -19,9 +19,11 @@
  */
 package net.minecraftforge.gradle.user;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
 import org.gradle.api.DefaultTask;
@@ -33,7 +35,9 @@ import org.gradle.api.tasks.OutputDirectory;
 import org.gradle.api.tasks.TaskAction;
 
 import java.io.*;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
@@ -53,45 +57,93 @@ public class TaskExtractDepAts extends DefaultTask {
         // make a list of things to delete...
         List<File> toDelete = Lists.newArrayList(outputDir.listFiles(File::isFile));
 
-        Splitter splitter = Splitter.on(' ');
+        Splitter splitter = Splitter.on(' ').omitEmptyStrings();
+
+        // FMLAT attributes of the jars seen before, so unchanged jars arent opened again
+        File indexFile = new File(getTemporaryDir(), "manifestAts.txt");
+        Map<String, String> index = readIndex(indexFile);
+        Map<String, String> newIndex = Maps.newLinkedHashMap();
 
         for (File f : col) {
             if (!f.exists() || !f.getName().endsWith("jar"))
                 continue;
 
-            JarFile jar = new JarFile(f);
-            Manifest man = jar.getManifest();
+            String key = f.getAbsolutePath() + "|" + f.length() + "|" + f.lastModified();
+            String atString = index.get(key);
+
+            if (atString != null) {
+                // unchanged jar, only reopen it if an output went missing
+                boolean missing = false;
+                for (String at : splitter.split(atString)) {
+                    File outFile = getOutFile(outputDir, at, f);
+                    toDelete.remove(outFile);
+                    missing |= !outFile.exists();
+                }
+
+                if (!missing) {
+                    newIndex.put(key, atString);
+                    continue;
+                }
+            }
 
-            if (man != null) {
-                String atString = man.getMainAttributes().getValue("FMLAT");
-                if (!Strings.isNullOrEmpty(atString)) {
-                    for (String at : splitter.split(atString.trim())) {
-                        // append _at.cfg just in case its not there already...
-                        // also differentiate the file name, in cas the same At comes from multiple jars.. who knows why...
-                        File outFile = new File(outputDir, at + "_" + Files.getNameWithoutExtension(f.getName()) + "_at.cfg");
-                        toDelete.remove(outFile);
+            try (JarFile jar = new JarFile(f)) {
+                Manifest man = jar.getManifest();
+                atString = man == null ? null : man.getMainAttributes().getValue("FMLAT");
+                atString = Strings.nullToEmpty(atString).trim();
 
-                        JarEntry entry = jar.getJarEntry("META-INF/" + at);
+                for (String at : splitter.split(atString)) {
+                    File outFile = getOutFile(outputDir, at, f);
+                    toDelete.remove(outFile);
 
-                        InputStream istream = jar.getInputStream(entry);
-                        OutputStream ostream = java.nio.file.Files.newOutputStream(outFile.toPath());
-                        ByteStreams.copy(istream, ostream);
+                    JarEntry entry = jar.getJarEntry("META-INF/" + at);
 
-                        istream.close();
-                        ostream.close();
+                    byte[] data;
+                    try (InputStream istream = jar.getInputStream(entry)) {
+                        data = ByteStreams.toByteArray(istream);
                     }
+
+                    // keep the file untouched if nothing changed, the deobf tasks hash it
+                    if (!outFile.exists() || !Arrays.equals(data, Files.toByteArray(outFile)))
+                        Files.write(data, outFile);
                 }
             }
 
-            jar.close();
+            newIndex.put(key, atString);
         }
 
+        writeIndex(indexFile, newIndex);
+
         // remove the files that shouldnt be there...
         for (File f : toDelete) {
             f.delete();
         }
     }
 
+    private static File getOutFile(File outputDir, String at, File jar) {
+        // append _at.cfg just in case its not there already...
+        // also differentiate the file name, in cas the same At comes from multiple jars.. who knows why...
+        return new File(outputDir, at + "_" + Files.getNameWithoutExtension(jar.getName()) + "_at.cfg");
+    }
+
+    private static Map<String, String> readIndex(File file) throws IOException {
+        Map<String, String> index = Maps.newHashMap();
+        if (file.exists()) {
+            for (String line : Files.readLines(file, Charsets.UTF_8)) {
+                int tab = line.indexOf('\t');
+                if (tab != -1)
+                    index.put(line.substring(0, tab), line.substring(tab + 1));
+            }
+        }
+        return index;
+    }
+
+    private static void writeIndex(File file, Map<String, String> index) throws IOException {
+        List<String> lines = Lists.newArrayListWithCapacity(index.size());
+        for (Map.Entry<String, String> e : index.entrySet())
+            lines.add(e.getKey() + "\t" + e.getValue());
+        Files.asCharSink(file, Charsets.UTF_8).writeLines(lines);
+    }
+
     @Internal
     public FileCollection getCollections() {
         List<Configuration> configs = Lists.newArrayListWithCapacity(configurations.size());
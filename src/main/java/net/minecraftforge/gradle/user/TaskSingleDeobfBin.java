@@ -19,12 +19,14 @@
  */
 package net.minecraftforge.gradle.user;
 
-import au.com.bytecode.opencsv.CSVReader;
-import com.google.common.collect.Maps;
+import com.google.common.collect.Lists;
 import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Futures;
 import net.minecraftforge.gradle.common.Constants;
 import net.minecraftforge.gradle.util.caching.Cached;
 import net.minecraftforge.gradle.util.caching.CachedTask;
+import net.minecraftforge.gradle.util.mcp.McpMappings;
+import org.gradle.api.logging.Logger;
 import org.gradle.api.tasks.InputFile;
 import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.TaskAction;
@@ -33,10 +35,14 @@ import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.commons.ClassRemapper;
 import org.objectweb.asm.commons.Remapper;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
@@ -57,92 +63,130 @@ public class TaskSingleDeobfBin extends CachedTask {
     @OutputFile
     private Object outJar;
 
-    private static byte[] deobfClass(byte[] classData, final Map<String, String> methods, final Map<String, String> fields) {
+    private Object cacheDir;
+
+    private static byte[] deobfClass(byte[] classData, final McpMappings mappings) {
         ClassReader reader = new ClassReader(classData);
         ClassWriter writer = new ClassWriter(0);
         Remapper remapper = new Remapper() {
             @Override
             public String mapFieldName(final String owner, final String name, final String desc) {
-                String mappedName = fields.get(name);
+                String mappedName = mappings.getField(name);
                 return mappedName != null ? mappedName : name;
             }
 
             @Override
             public String mapMethodName(final String owner, final String name, final String desc) {
-                String mappedName = methods.get(name);
+                String mappedName = mappings.getMethod(name);
                 return mappedName != null ? mappedName : name;
             }
 
             @Override
             public String mapInvokeDynamicMethodName(final String name, final String desc) {
-                String mappedName = methods.get(name);
+                String mappedName = mappings.getMethod(name);
                 return mappedName != null ? mappedName : name;
             }
         };
         ClassRemapper adapter = new ClassRemapper(writer, remapper);
-        reader.accept(adapter, ClassReader.EXPAND_FRAMES);
+        reader.accept(adapter, 0); // only names change, the frames can be copied as they are
         return writer.toByteArray();
     }
 
     @TaskAction
     public void doTask() throws IOException {
-        final Map<String, String> methods = Maps.newHashMap();
-        final Map<String, String> fields = Maps.newHashMap();
+        deobf(getInJar(), getOutJar(), getMethodCsv(), getFieldCsv(), getCacheDir(), null, getLogger());
+    }
 
-        // read CSV files
-        CSVReader reader = Constants.getReader(getMethodCsv());
-        for (String[] s : reader.readAll()) {
-            methods.put(s[0], s[1]);
-        }
+    /**
+     * Deobfuscates one dependency jar.
+     * The same artifact with the same mappings is only deobfuscated once, for every project, if a cache dir is given.
+     *
+     * @param classPool if not null, the classes are remapped on this pool
+     */
+    static void deobf(File input, File output, File methodCsv, File fieldCsv, File cacheDir, ExecutorService classPool, Logger logger) throws IOException {
+        output.getParentFile().mkdirs();
 
-        reader = Constants.getReader(getFieldCsv());
-        for (String[] s : reader.readAll()) {
-            fields.put(s[0], s[1]);
+        if (cacheDir == null) {
+            deobfJar(input, output, methodCsv, fieldCsv, classPool);
+            return;
         }
 
-        // actually do the jar copy..
-        File input = getInJar();
-        File output = getOutJar();
-
-        output.getParentFile().mkdirs();
+        String mappings = Constants.hash(Constants.hash(methodCsv) + Constants.hash(fieldCsv));
+        File cached = new File(cacheDir, Constants.hash(input) + "-" + mappings + ".jar");
+
+        if (!cached.isFile()) {
+            cacheDir.mkdirs();
+            File temp = File.createTempFile(cached.getName(), ".tmp", cacheDir);
+            try {
+                deobfJar(input, temp, methodCsv, fieldCsv, classPool);
+                // another project may have been faster, its the same jar either way.
+                if (!temp.renameTo(cached) && !cached.isFile())
+                    throw new IOException("Could not move " + temp + " to " + cached);
+            } finally {
+                temp.delete();
+            }
+        } else {
+            logger.info("Using cached deobfuscated {}", input.getName());
+        }
 
-        // begin reading jar
-        ZipInputStream zin = new ZipInputStream(Files.newInputStream(input.toPath()));
-        JarOutputStream zout = new JarOutputStream(Files.newOutputStream(output.toPath()));
-        ZipEntry entry;
+        Constants.copyFile(cached, output);
+    }
 
-        while ((entry = zin.getNextEntry()) != null) {
-            if (entry.getName().contains("META-INF")) {
-                // Skip signature files
-                if (entry.getName().endsWith(".SF") || entry.getName().endsWith(".DSA")) {
-                    continue;
+    private static void deobfJar(File input, File output, File methodCsv, File fieldCsv, ExecutorService classPool) throws IOException {
+        // read CSV files, shared with the other deobf tasks
+        final McpMappings mappings = McpMappings.load(methodCsv, fieldCsv);
+
+        // read the whole jar first, so the classes can be remapped while the rest is read
+        List<JarEntry> entries = Lists.newArrayList();
+        List<Future<byte[]>> data = Lists.newArrayList();
+        try (ZipInputStream zin = new ZipInputStream(Files.newInputStream(input.toPath()))) {
+            ZipEntry entry;
+            while ((entry = zin.getNextEntry()) != null) {
+                if (entry.getName().contains("META-INF")) {
+                    // Skip signature files
+                    if (entry.getName().endsWith(".SF") || entry.getName().endsWith(".DSA")) {
+                        continue;
+                    }
+                    // Strip out file signatures from manifest
+                    else if (entry.getName().equals("META-INF/MANIFEST.MF")) {
+                        Manifest mf = new Manifest(zin);
+                        mf.getEntries().clear();
+                        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+                        mf.write(buf);
+                        entries.add(new JarEntry(entry.getName()));
+                        data.add(Futures.immediateFuture(buf.toByteArray()));
+                        continue;
+                    }
                 }
-                // Strip out file signatures from manifest
-                else if (entry.getName().equals("META-INF/MANIFEST.MF")) {
-                    Manifest mf = new Manifest(zin);
-                    mf.getEntries().clear();
-                    zout.putNextEntry(new JarEntry(entry.getName()));
-                    mf.write(zout);
-                    zout.closeEntry();
-                    continue;
+
+                final byte[] bytes = ByteStreams.toByteArray(zin);
+
+                // resources or directories.
+                if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
+                    // not a copy of the entry, its sizes are only known after reading and the output may compress differently
+                    JarEntry copy = new JarEntry(entry.getName());
+                    copy.setTime(entry.getTime());
+                    entries.add(copy);
+                    data.add(Futures.immediateFuture(bytes));
+                } else {
+                    // classes
+                    entries.add(new JarEntry(entry.getName()));
+                    if (classPool == null)
+                        data.add(Futures.immediateFuture(deobfClass(bytes, mappings)));
+                    else
+                        data.add(classPool.submit(() -> deobfClass(bytes, mappings)));
                 }
             }
+        }
 
-            // resources or directories.
-            if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
-                zout.putNextEntry(new JarEntry(entry));
-                ByteStreams.copy(zin, zout);
-                zout.closeEntry();
-            } else {
-                // classes
-                zout.putNextEntry(new JarEntry(entry.getName()));
-                zout.write(deobfClass(ByteStreams.toByteArray(zin), methods, fields));
+        // and write it back out, in the same order
+        try (JarOutputStream zout = new JarOutputStream(new BufferedOutputStream(Files.newOutputStream(output.toPath())))) {
+            for (int i = 0; i < entries.size(); i++) {
+                zout.putNextEntry(entries.get(i));
+                zout.write(Futures.getChecked(data.get(i), IOException.class));
                 zout.closeEntry();
             }
         }
-
-        zout.close();
-        zin.close();
     }
 
     public File getMethodCsv() {
@@ -176,4 +220,12 @@ public class TaskSingleDeobfBin extends CachedTask {
     public void setOutJar(Object outJar) {
         this.outJar = outJar;
     }
+
+    public File getCacheDir() {
+        return cacheDir == null ? null : getProject().file(cacheDir);
+    }
+
+    public void setCacheDir(Object cacheDir) {
+        this.cacheDir = cacheDir;
+    }
 }
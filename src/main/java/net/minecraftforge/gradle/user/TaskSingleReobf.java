@@ -20,18 +20,19 @@
 package net.minecraftforge.gradle.user;
 
 import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
 import groovy.lang.Closure;
-import net.md_5.specialsource.Jar;
 import net.md_5.specialsource.JarMapping;
 import net.md_5.specialsource.JarRemapper;
-import net.md_5.specialsource.provider.ClassLoaderProvider;
-import net.md_5.specialsource.provider.JarProvider;
+import net.md_5.specialsource.provider.InheritanceProvider;
 import net.md_5.specialsource.provider.JointProvider;
 import net.minecraftforge.gradle.common.Constants;
 import net.minecraftforge.gradle.util.GradleConfigurationException;
+import net.minecraftforge.gradle.util.InheritanceIndex;
 import net.minecraftforge.gradle.util.mcp.ReobfExceptor;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.file.FileCollection;
@@ -39,8 +40,14 @@ import org.gradle.api.tasks.TaskAction;
 import org.objectweb.asm.ClassReader;
 
 import java.io.*;
-import java.net.URLClassLoader;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
@@ -84,6 +91,8 @@ import java.util.zip.ZipOutputStream;
  * </pre>
  */
 public class TaskSingleReobf extends DefaultTask {
+    private static final long SLOW_TRANSFORMER_MS = 1000;
+
     private final List<Object> secondarySrgFiles = Lists.newArrayList();
     private final List<String> extraSrgLines = Lists.newArrayList();
     private final List<ReobfTransformer> preTransformers = Lists.newArrayList();
@@ -146,49 +155,65 @@ public class TaskSingleReobf extends DefaultTask {
             writer.close();
         }
 
-        // prepare jar for reobf
-        File out = getJar(); // we will repalce the file on output
-        File tempIn = File.createTempFile("input", ".jar", getTemporaryDir());
-        tempIn.deleteOnExit();
-        Constants.copyFile(out, tempIn); // copy the to-be-output jar to the temporary input location. because output == input
-
-        File obfuscated;
+        // the whole pipeline runs in memory, the jar is only read and written once
+        File out = getJar();
+        List<JarData> input = readJar(out);
+        List<JarData> output;
         try {
             // pre-transform
-            List<ReobfTransformer> transformers = getPreTransformers();
-            if (!transformers.isEmpty()) {
-                File transformed = File.createTempFile("preTransformed", ".jar", getTemporaryDir());
-                transformed.deleteOnExit();
-                applyExtraTransformers(tempIn, transformed, transformers);
-
-                tempIn = transformed; // for later copying
-            }
+            applyExtraTransformers(input, getPreTransformers());
 
             // obfuscate
-            obfuscated = File.createTempFile("obfuscated", ".jar", getTemporaryDir());
-            obfuscated.deleteOnExit();
-            applySpecialSource(tempIn, obfuscated, srg, srgLines, getSecondarySrgFiles());
+            output = applySpecialSource(input, srg, srgLines, getSecondarySrgFiles());
 
             // post transform
-            transformers = getPostTransformers();
-            if (!transformers.isEmpty()) {
-                File transformed = File.createTempFile("postTransformed", ".jar", getTemporaryDir());
-                transformed.deleteOnExit();
-                applyExtraTransformers(obfuscated, transformed, transformers);
-
-                obfuscated = transformed; // for later copying
-            }
-
+            applyExtraTransformers(output, getPostTransformers());
         } catch (Exception e) {
-            checkClasses(tempIn);
+            checkClasses(input);
             throw new RuntimeException("Unknown error occurred reobfuscating classes", e);
         }
 
-        // copy to output
-        Constants.copyFile(obfuscated, out);
+        writeJar(output, out);
     }
 
-    private void applySpecialSource(File input, File output, File srg, File extraSrg, FileCollection extraSrgFiles) throws IOException {
+    private static List<JarData> readJar(File jar) throws IOException {
+        List<JarData> entries = Lists.newArrayList();
+        try (ZipFile in = new ZipFile(jar)) {
+            for (ZipEntry e : Collections.list(in.entries())) {
+                byte[] data = e.isDirectory() ? null : ByteStreams.toByteArray(in.getInputStream(e));
+                entries.add(new JarData(e.getName(), e.getTime(), data));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Writes next to the target and then moves it over, so a failed write never leaves a broken jar behind.
+     */
+    private static void writeJar(List<JarData> entries, File jar) throws IOException {
+        File temp = File.createTempFile(jar.getName(), ".tmp", jar.getParentFile());
+        try {
+            try (ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(java.nio.file.Files.newOutputStream(temp.toPath())))) {
+                for (JarData e : entries) {
+                    ZipEntry n = new ZipEntry(e.name);
+                    n.setTime(e.time);
+                    out.putNextEntry(n);
+                    if (e.data != null)
+                        out.write(e.data);
+                }
+            }
+
+            try {
+                java.nio.file.Files.move(temp.toPath(), jar.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                java.nio.file.Files.move(temp.toPath(), jar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            temp.delete();
+        }
+    }
+
+    private List<JarData> applySpecialSource(List<JarData> input, File srg, File extraSrg, FileCollection extraSrgFiles) throws IOException {
         // load mapping
         JarMapping mapping = new JarMapping();
         mapping.loadMappings(srg);
@@ -201,70 +226,104 @@ public class TaskSingleReobf extends DefaultTask {
         // make remapper
         JarRemapper remapper = new JarRemapper(null, mapping);
 
-        // load jar
-        Jar inputJar = Jar.init(input);
-
         // ensure that inheritance provider is used
         JointProvider inheritanceProviders = new JointProvider();
-        inheritanceProviders.add(new JarProvider(inputJar));
+        inheritanceProviders.add(new ClassMapProvider(input));
         if (classpath != null)
-            inheritanceProviders.add(new ClassLoaderProvider(new URLClassLoader(Constants.toUrls(classpath))));
+            inheritanceProviders.add(new InheritanceIndex(classpath, InheritanceIndex.getCacheDir(getProject())));
         mapping.setFallbackInheritanceProvider(inheritanceProviders);
 
-        // remap jar
-        remapper.remapJar(inputJar, output);
+        // remap jar, same as SpecialSource would do it
+        List<JarData> output = Lists.newArrayListWithCapacity(input.size());
+        for (JarData e : input) {
+            if (e.data != null && e.name.endsWith(".class")) {
+                String name = e.name.substring(0, e.name.length() - 6);
+                output.add(new JarData(remapper.map(name) + ".class", e.time, remapper.remapClassFile(e.data, null)));
+            } else if (!e.name.endsWith(".DSA") && !e.name.endsWith(".SF")) {
+                output.add(e);
+            }
+        }
+        return output;
     }
 
-    private void applyExtraTransformers(File inJar, File outJar, List<ReobfTransformer> transformers) throws IOException {
-        ZipFile in = new ZipFile(inJar);
-        final ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(java.nio.file.Files.newOutputStream(outJar.toPath())));
+    private void applyExtraTransformers(List<JarData> entries, List<ReobfTransformer> transformers) throws IOException {
+        if (transformers.isEmpty())
+            return;
+
+        final List<JarData> classes = Lists.newArrayList();
+        for (JarData e : entries) {
+            // correct source name
+            if (e.data != null && e.name.endsWith(".class"))
+                classes.add(e);
+        }
+
+        // one transformer after the other, so every class still sees them in order
+        for (final ReobfTransformer trans : transformers) {
+            long start = System.nanoTime();
 
-        for (ZipEntry e : Collections.list(in.entries())) {
-            if (e.isDirectory()) {
-                out.putNextEntry(e);
+            int threads = trans.isThreadSafe() ? Math.min(Runtime.getRuntime().availableProcessors(), classes.size()) : 1;
+            if (threads <= 1) {
+                for (JarData e : classes)
+                    transform(trans, e);
             } else {
-                ZipEntry n = new ZipEntry(e.getName());
-                n.setTime(e.getTime());
-                out.putNextEntry(n);
-
-                byte[] data = ByteStreams.toByteArray(in.getInputStream(e));
-
-                // correct source name
-                if (e.getName().endsWith(".class")) {
-                    for (ReobfTransformer trans : transformers) {
-                        try {
-                            data = trans.transform(data);
-                        } catch (Exception exception) {
-                            getLogger().warn("Failed to transform class {} using transformer {}", e.getName(), trans.getClass().getName(), exception);
-                        }
-                    }
+                List<Callable<Void>> jobs = Lists.newArrayListWithCapacity(threads);
+                for (int i = 0; i < threads; i++) {
+                    final List<JarData> part = classes.subList(classes.size() * i / threads, classes.size() * (i + 1) / threads);
+                    jobs.add(() -> {
+                        for (JarData e : part)
+                            transform(trans, e);
+                        return null;
+                    });
                 }
-
-                out.write(data);
+                invokeAll(jobs, threads);
             }
+
+            long time = (System.nanoTime() - start) / 1000000;
+            if (time >= SLOW_TRANSFORMER_MS)
+                getLogger().lifecycle("Transformer {} took {}ms for {} classes", trans.getClass().getName(), time, classes.size());
+            else
+                getLogger().info("Transformer {} took {}ms for {} classes", trans.getClass().getName(), time, classes.size());
         }
+    }
 
-        out.flush();
-        out.close();
-        in.close();
+    private void transform(ReobfTransformer trans, JarData e) {
+        try {
+            e.data = trans.transform(e.data);
+        } catch (Exception exception) {
+            getLogger().warn("Failed to transform class {} using transformer {}", e.name, trans.getClass().getName(), exception);
+        }
     }
 
-    private void checkClasses(File file) throws IOException {
-        List<String> invalidClasses = new ArrayList<>();
+    private static void invokeAll(List<Callable<Void>> jobs, int threads) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Void> future : executor.invokeAll(jobs)) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwables.throwIfUnchecked(e.getCause());
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while transforming classes", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-        try (ZipFile in = new ZipFile(file)) {
-            for (ZipEntry entry : Collections.list(in.entries())) {
-                byte[] data = ByteStreams.toByteArray(in.getInputStream(entry));
+    private void checkClasses(List<JarData> entries) {
+        List<String> invalidClasses = new ArrayList<>();
 
-                if (entry.getName().endsWith(".class")) {
-                    try {
-                        new ClassReader(data);
-                    } catch (Exception e) {
-                        invalidClasses.add(entry.getName());
-                    }
+        for (JarData entry : entries) {
+            if (entry.data != null && entry.name.endsWith(".class")) {
+                try {
+                    new ClassReader(entry.data);
+                } catch (Exception e) {
+                    invalidClasses.add(entry.name);
                 }
             }
-
         }
 
         if (!invalidClasses.isEmpty()) {
@@ -277,6 +336,51 @@ public class TaskSingleReobf extends DefaultTask {
         }
     }
 
+    private static class JarData {
+        final String name;
+        final long time;
+        byte[] data; // null for directories
+
+        JarData(String name, long time, byte[] data) {
+            this.name = name;
+            this.time = time;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Inheritance of the classes being reobfuscated, read from memory instead of a jar on disk.
+     */
+    private static class ClassMapProvider implements InheritanceProvider {
+        private final Map<String, byte[]> classes = Maps.newHashMap();
+        private final Map<String, Collection<String>> parents = Maps.newHashMap();
+
+        ClassMapProvider(List<JarData> entries) {
+            for (JarData e : entries) {
+                if (e.data != null && e.name.endsWith(".class"))
+                    classes.put(e.name.substring(0, e.name.length() - 6), e.data);
+            }
+        }
+
+        @Override
+        public Collection<String> getParents(String className) {
+            if (parents.containsKey(className))
+                return parents.get(className);
+
+            byte[] data = classes.get(className);
+            List<String> out = null;
+            if (data != null) {
+                ClassReader reader = new ClassReader(data);
+                out = Lists.newArrayList(reader.getInterfaces());
+                if (reader.getSuperName() != null)
+                    out.add(reader.getSuperName());
+            }
+
+            parents.put(className, out);
+            return out;
+        }
+    }
+
     // Main Jar and classpath
     // --------------------------------------------
 
@@ -20,8 +20,10 @@
 package net.minecraftforge.gradle.user;
 
 import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
 import com.google.common.io.Files;
 import groovy.lang.Closure;
+import net.minecraftforge.gradle.common.Constants;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.file.DirectoryTree;
 import org.gradle.api.file.FileCollection;
@@ -37,9 +39,18 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class TaskSourceCopy extends DefaultTask {
@@ -57,7 +68,7 @@ public class TaskSourceCopy extends DefaultTask {
 
     @SuppressWarnings("unchecked")
     @TaskAction
-    public void doTask() throws IOException {
+    public void doTask() throws Exception {
         // get the include/exclude patterns from the source (this is different than what's returned by getFilter)
         PatternSet patterns = new PatternSet();
         patterns.setIncludes(source.getIncludes());
@@ -65,14 +76,11 @@ public class TaskSourceCopy extends DefaultTask {
 
         // get output
         File out = getOutput();
-        if (out.exists())
-            deleteDir(out);
-
         out.mkdirs();
         out = out.getCanonicalFile();
 
         // resolve replacements
-        HashMap<String, String> repl = new HashMap<>(replacements.size());
+        Map<String, String> repl = new TreeMap<>();
         for (Entry<String, Object> e : replacements.entrySet()) {
             if (e.getKey() == null || e.getValue() == null)
                 continue; // we dont deal with nulls.
@@ -81,12 +89,16 @@ public class TaskSourceCopy extends DefaultTask {
             while (val instanceof Closure)
                 val = ((Closure<Object>) val).call();
 
-            repl.put(Pattern.quote(e.getKey()), val.toString());
+            repl.put(e.getKey(), val.toString());
         }
 
         getLogger().debug("REPLACE >> {}", repl);
 
-        // start traversing tree
+        final Replacer replacer = new Replacer(repl);
+        final String replSignature = Constants.hash(repl.toString() + includes);
+
+        // start traversing tree, later source dirs win just like they did when everything was copied over
+        Map<String, File> files = new LinkedHashMap<>();
         for (DirectoryTree dirTree : source.getSrcDirTrees()) {
             File dir = dirTree.getDir();
             getLogger().debug("PARSING DIR >> {}", dir);
@@ -102,29 +114,107 @@ public class TaskSourceCopy extends DefaultTask {
             FileTree tree = getProject().fileTree(dir).matching(source.getFilter()).matching(patterns);
 
             for (File file : tree) {
-                File dest = getDest(file, dir, out);
+                file = file.getCanonicalFile();
+                files.put(dir.toPath().relativize(file.toPath()).toString().replace('\\', '/'), file);
+            }
+        }
+
+        // only files whose source or replacements changed are written again
+        File stateFile = new File(getTemporaryDir(), "copied.txt");
+        Map<String, String> oldState = readState(stateFile);
+        Map<String, String> newState = new TreeMap<>();
+        List<Callable<Void>> jobs = new ArrayList<>();
+
+        for (Entry<String, File> e : files.entrySet()) {
+            final File file = e.getValue();
+            final File dest = new File(out, e.getKey());
+            final boolean replace = isIncluded(file);
+
+            String state = file.length() + "|" + file.lastModified() + (replace ? "|" + replSignature : "");
+            newState.put(e.getKey(), state);
+
+            if (state.equals(oldState.get(e.getKey())) && dest.isFile())
+                continue;
+
+            jobs.add(() -> {
                 dest.getParentFile().mkdirs();
-                dest.createNewFile();
 
-                if (isIncluded(file)) {
+                if (replace) {
                     getLogger().debug("PARSING FILE IN >> {}", file);
                     String text = Files.asCharSource(file, Charsets.UTF_8).read();
-
-                    for (Entry<String, String> entry : repl.entrySet())
-                        text = text.replaceAll(entry.getKey(), entry.getValue());
-
                     getLogger().debug("PARSING FILE OUT >> {}", dest);
-                    Files.asCharSink(dest, Charsets.UTF_8).write(text);
+                    Files.asCharSink(dest, Charsets.UTF_8).write(replacer.replace(text));
                 } else {
                     Files.copy(file, dest);
                 }
+                return null;
+            });
+        }
+
+        deleteStale(out, "", newState.keySet());
+
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            for (Future<Void> future : executor.invokeAll(jobs)) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    stateFile.delete(); // don't trust anything next time
+                    Throwables.throwIfInstanceOf(ex.getCause(), Exception.class);
+                    throw ex;
+                }
             }
+        } finally {
+            executor.shutdownNow();
         }
+
+        getLogger().debug("Copied {} of {} files", jobs.size(), files.size());
+        writeState(stateFile, newState);
     }
 
-    private File getDest(File in, File base, File baseOut) throws IOException {
-        String relative = in.getCanonicalPath().replace(base.getCanonicalPath(), "");
-        return new File(baseOut, relative);
+    private static Map<String, String> readState(File file) throws IOException {
+        Map<String, String> state = new HashMap<>();
+        if (file.exists()) {
+            for (String line : Files.readLines(file, Charsets.UTF_8)) {
+                int idx = line.indexOf('\t');
+                if (idx > 0)
+                    state.put(line.substring(0, idx), line.substring(idx + 1));
+            }
+        }
+        return state;
+    }
+
+    private static void writeState(File file, Map<String, String> state) throws IOException {
+        StringBuilder buf = new StringBuilder();
+        for (Entry<String, String> e : state.entrySet()) {
+            buf.append(e.getKey()).append('\t').append(e.getValue()).append('\n');
+        }
+        Files.asCharSink(file, Charsets.UTF_8).write(buf);
+    }
+
+    /**
+     * @return TRUE if the directory is empty afterwards
+     */
+    private static boolean deleteStale(File dir, String prefix, Set<String> keep) {
+        File[] children = dir.listFiles();
+        if (children == null)
+            return false;
+
+        boolean empty = true;
+        for (File child : children) {
+            String path = prefix + child.getName();
+            if (child.isDirectory()) {
+                if (deleteStale(child, path + "/", keep))
+                    child.delete();
+                else
+                    empty = false;
+            } else if (!keep.contains(path)) {
+                child.delete();
+            } else {
+                empty = false;
+            }
+        }
+        return empty;
     }
 
     private boolean isIncluded(File file) throws IOException {
@@ -140,20 +230,49 @@ public class TaskSourceCopy extends DefaultTask {
         return false;
     }
 
-    private void deleteDir(File dir) {
-        if (dir.exists()) {
-            File[] files = dir.listFiles();
-            if (null != files) {
-                for (File file : files) {
-                    if (file.isDirectory()) {
-                        deleteDir(file);
-                    } else {
-                        file.delete();
-                    }
-                }
+    /**
+     * Replaces every key in a single pass, using one precompiled alternation of all of them.
+     * Longer keys are tried first, and values are inserted literally.
+     */
+    static class Replacer {
+        private final Map<String, String> replacements;
+        private final Pattern pattern;
+
+        Replacer(Map<String, String> replacements) {
+            this.replacements = replacements;
+
+            List<String> keys = new ArrayList<>(replacements.keySet());
+            keys.sort((a, b) -> b.length() - a.length());
+
+            StringBuilder regex = new StringBuilder();
+            for (String key : keys) {
+                if (key.isEmpty())
+                    continue;
+                if (regex.length() > 0)
+                    regex.append('|');
+                regex.append(Pattern.quote(key));
             }
+            this.pattern = regex.length() == 0 ? null : Pattern.compile(regex.toString());
+        }
+
+        String replace(String text) {
+            if (pattern == null)
+                return text;
+
+            Matcher matcher = pattern.matcher(text);
+            if (!matcher.find())
+                return text;
+
+            StringBuilder buf = new StringBuilder(text.length() + 16);
+            int last = 0;
+            do {
+                buf.append(text, last, matcher.start()).append(replacements.get(matcher.group()));
+                last = matcher.end();
+            } while (matcher.find());
+            buf.append(text, last, text.length());
+
+            return buf.toString();
         }
-        dir.delete();
     }
 
     public File getOutput() {
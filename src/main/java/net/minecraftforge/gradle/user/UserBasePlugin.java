@@ -537,13 +537,13 @@ public abstract class UserBasePlugin<T extends UserBaseExtension> extends BasePl
     }
 
     protected final void doDevTimeDeobf() {
-        final Task compileDummy = getDummyDep("implementation", delayedFile(DIR_DEOBF_DEPS + "/compileDummy.jar"), TASK_DD_COMPILE);
-        final Task providedDummy = getDummyDep("implementation", delayedFile(DIR_DEOBF_DEPS + "/providedDummy.jar"), TASK_DD_PROVIDED);
+        final TaskDepDummy compileDummy = getDummyDep("implementation", delayedFile(DIR_DEOBF_DEPS + "/compileDummy.jar"), TASK_DD_COMPILE);
+        final TaskDepDummy providedDummy = getDummyDep("implementation", delayedFile(DIR_DEOBF_DEPS + "/providedDummy.jar"), TASK_DD_PROVIDED);
 
         setupDevTimeDeobf(compileDummy, providedDummy);
     }
 
-    protected void setupDevTimeDeobf(final Task compileDummy, final Task providedDummy) {
+    protected void setupDevTimeDeobf(final TaskDepDummy compileDummy, final TaskDepDummy providedDummy) {
         // die wih error if I find invalid types...
         project.afterEvaluate(project -> {
             if (project.getState().getFailure() != null)
@@ -558,7 +558,7 @@ public abstract class UserBasePlugin<T extends UserBaseExtension> extends BasePl
     }
 
     @SuppressWarnings("unchecked")
-    protected void remapDeps(Project project, Configuration config, String resolvedConfig, Task dummyTask) {
+    protected void remapDeps(Project project, Configuration config, String resolvedConfig, TaskDepDummy dummyTask) {
         // only allow maven/ivy dependencies
         for (Dependency dep : config.getIncoming().getDependencies()) {
             if (!(dep instanceof ExternalModuleDependency)) {
@@ -580,17 +580,19 @@ public abstract class UserBasePlugin<T extends UserBaseExtension> extends BasePl
             // Add artifacts that will be remapped to get their sources
             idMap.put(artifact.getId().getComponentIdentifier(), module);
 
-            TaskSingleDeobfBin deobf = makeTask(config.getName() + "DeobfDepTask" + (taskId++), TaskSingleDeobfBin.class);
-            deobf.setInJar(artifact.getFile());
-            deobf.setOutJar(getFile(DIR_DEOBF_DEPS, group, module.getName(), module.getVersion(), null));
-            deobf.setFieldCsv(delayedFile(CSV_FIELD));
-            deobf.setMethodCsv(delayedFile(CSV_METHOD));
-            deobf.dependsOn(TASK_EXTRACT_MAPPINGS);
-            dummyTask.dependsOn(deobf);
+            // deobfuscated by the dummy task, all of them at once
+            dummyTask.addDeobfDep(artifact.getFile(), getFile(DIR_DEOBF_DEPS, group, module.getName(), module.getVersion(), null));
 
             project.getDependencies().add(resolvedConfig, group + ":" + module.getName() + ":" + module.getVersion());
         }
 
+        if (dummyTask.hasDeobfDeps()) {
+            dummyTask.setFieldCsv(delayedFile(CSV_FIELD));
+            dummyTask.setMethodCsv(delayedFile(CSV_METHOD));
+            dummyTask.setCacheDir(delayedFile(DIR_DEOBF_DEPS_CACHE));
+            dummyTask.dependsOn(TASK_EXTRACT_MAPPINGS);
+        }
+
         for (DependencyResult depResult : config.getIncoming().getResolutionResult().getAllDependencies()) {
             idMap.put(depResult.getFrom().getId(), depResult.getFrom().getModuleVersion());
         }
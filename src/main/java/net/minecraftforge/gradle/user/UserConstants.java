@@ -50,6 +50,7 @@ public class UserConstants {
     public static final String TASK_DD_COMPILE = "deobfCompileDummyTask";
     public static final String TASK_DD_PROVIDED = "deobfProvidedDummyTask";
     public static final String DIR_DEOBF_DEPS = REPLACE_CACHE_DIR + "/deobfedDeps/";
+    public static final String DIR_DEOBF_DEPS_CACHE = REPLACE_CACHE_DIR + "/deobfedDepsCache/";
     public static final String DIR_DEP_ATS = REPLACE_BUILD_DIR + "/depAts/";
     // retromapping sourceSets
     public static final String DIR_RETROMAP = REPLACE_BUILD_DIR + "/retromapping";
@@ -19,6 +19,7 @@
  */
 package net.minecraftforge.gradle.user.liteloader;
 
+import net.minecraftforge.gradle.user.TaskDepDummy;
 import net.minecraftforge.gradle.user.UserVanillaBasePlugin;
 import net.minecraftforge.gradle.util.delayed.DelayedFile;
 import net.minecraftforge.gradle.util.json.JsonFactory;
@@ -27,7 +28,6 @@ import net.minecraftforge.gradle.util.json.LiteLoaderJson.Artifact;
 import net.minecraftforge.gradle.util.json.LiteLoaderJson.RepoObject;
 import net.minecraftforge.gradle.util.json.LiteLoaderJson.VersionObject;
 import org.gradle.api.Project;
-import org.gradle.api.Task;
 import org.gradle.api.artifacts.ConfigurationContainer;
 import org.gradle.api.java.archives.Attributes;
 import org.gradle.api.tasks.TaskContainer;
@@ -103,7 +103,7 @@ public class LiteloaderPlugin extends UserVanillaBasePlugin<LiteloaderExtension>
     }
 
     @Override
-    protected void setupDevTimeDeobf(final Task compileDummy, final Task providedDummy) {
+    protected void setupDevTimeDeobf(final TaskDepDummy compileDummy, final TaskDepDummy providedDummy) {
         super.setupDevTimeDeobf(compileDummy, providedDummy);
 
         // die with error if I find invalid types...
@@ -21,35 +21,34 @@ package net.minecraftforge.gradle.user.patcherUser;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.io.ByteArrayDataInput;
-import com.google.common.io.ByteStreams;
 import com.nothome.delta.GDiffPatcher;
-import lzma.sdk.lzma.Decoder;
-import lzma.streams.LzmaInputStream;
+import net.minecraftforge.gradle.util.BinPatchFormat;
+import net.minecraftforge.gradle.util.RawZipOutput;
+import net.minecraftforge.gradle.util.ZipIndex;
 import net.minecraftforge.gradle.util.caching.Cached;
 import net.minecraftforge.gradle.util.caching.CachedTask;
-import org.gradle.api.file.FileVisitDetails;
-import org.gradle.api.file.FileVisitor;
 import org.gradle.api.tasks.InputFile;
 import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.TaskAction;
 
 import java.io.*;
 import java.nio.file.Files;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
-import java.util.jar.JarOutputStream;
-import java.util.jar.Pack200;
 import java.util.regex.Pattern;
 import java.util.zip.*;
 
 public class TaskApplyBinPatches extends CachedTask {
     private final HashMap<String, ClassPatch> patchlist = Maps.newHashMap();
-    private final GDiffPatcher patcher = new GDiffPatcher();
+    private final ThreadLocal<GDiffPatcher> patcher = ThreadLocal.withInitial(GDiffPatcher::new); // one per worker
     //@formatter:off
     @InputFile
     Object inJar;
@@ -72,77 +71,70 @@ public class TaskApplyBinPatches extends CachedTask {
             getOutJar().delete();
         }
 
-        final HashSet<String> entries = new HashSet<>();
-
-        try (ZipFile in = new ZipFile(getInJar()); ZipInputStream classesIn = new ZipInputStream(Files.newInputStream(getClassesJar().toPath())); ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(getOutJar().toPath())))) {
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try (ZipIndex in = new ZipIndex(getInJar()); ZipIndex classesIn = new ZipIndex(getClassesJar()); ZipIndex resourcesIn = new ZipIndex(getResourcesJar()); RawZipOutput out = new RawZipOutput(getOutJar())) {
             // DO PATCHES
             log("Patching Class:");
-            for (ZipEntry e : Collections.list(in.entries())) {
+            List<ZipIndex.Entry> patched = Lists.newArrayList();
+            List<Future<byte[]>> results = Lists.newArrayList();
+
+            for (ZipIndex.Entry e : in.getEntries()) {
                 if (e.getName().contains("META-INF"))
                     continue;
 
+                final ClassPatch patch = patchlist.get(e.getName().replace('\\', '/'));
+
                 if (e.isDirectory()) {
-                    out.putNextEntry(e);
+                    out.putDirectory(e.getName(), e.getTime());
+                } else if (patch != null) {
+                    // patched on the pool, the rest of the jar keeps copying meanwhile
+                    final byte[] data = in.read(e);
+                    patched.add(e);
+                    results.add(executor.submit(() -> applyPatch(patch, data)));
                 } else {
-                    ZipEntry n = new ZipEntry(e.getName());
-                    n.setTime(e.getTime());
-                    out.putNextEntry(n);
-
-                    byte[] data = ByteStreams.toByteArray(in.getInputStream(e));
-                    ClassPatch patch = patchlist.get(e.getName().replace('\\', '/'));
-
-                    if (patch != null) {
-                        log("\t%s (%s) (input size %d)", patch.targetClassName, patch.sourceClassName, data.length);
-                        int inputChecksum = adlerHash(data);
-                        if (patch.inputChecksum != inputChecksum) {
-                            throw new RuntimeException(String.format("There is a binary discrepency between the expected input class %s (%s) and the actual class. Checksum on disk is %x, in patch %x. Things are probably about to go very wrong. Did you put something into the jar file?", patch.targetClassName, patch.sourceClassName, inputChecksum, patch.inputChecksum));
-                        }
-                        synchronized (patcher) {
-                            data = patcher.patch(data, patch.patch);
-                        }
-                    }
-
-                    out.write(data);
+                    // untouched, so copied as it is
+                    out.copy(in, e);
                 }
-
-                // add the names to the hashset
-                entries.add(e.getName());
             }
 
-            // COPY DATA
-            ZipEntry entry;
-            while ((entry = classesIn.getNextEntry()) != null) {
-                if (entries.contains(entry.getName()))
-                    continue;
+            for (int i = 0; i < patched.size(); i++) {
+                byte[] data;
+                try {
+                    data = results.get(i).get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while patching classes", e);
+                } catch (ExecutionException e) {
+                    Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+                    Throwables.throwIfUnchecked(e.getCause());
+                    throw new RuntimeException(e.getCause());
+                }
 
-                out.putNextEntry(entry);
-                out.write(ByteStreams.toByteArray(classesIn));
-                entries.add(entry.getName());
+                out.putEntry(patched.get(i).getName(), patched.get(i).getTime(), data);
             }
 
-            getProject().zipTree(getResourcesJar()).visit(new FileVisitor() {
-                @Override
-                public void visitDir(FileVisitDetails dirDetails) {
-                }
+            // COPY DATA
+            for (ZipIndex.Entry e : classesIn.getEntries()) {
+                if (!out.contains(e.getName()))
+                    out.copy(classesIn, e);
+            }
 
-                @Override
-                public void visitFile(FileVisitDetails file) {
-                    try {
-                        String name = file.getRelativePath().toString().replace('\\', '/');
-                        if (!entries.contains(name)) {
-                            ZipEntry n = new ZipEntry(name);
-                            n.setTime(file.getLastModified());
-                            out.putNextEntry(n);
-                            ByteStreams.copy(file.open(), out);
-                            entries.add(name);
-                        }
-                    } catch (IOException e) {
-                        Throwables.throwIfUnchecked(e);
-                    }
-                }
+            for (ZipIndex.Entry e : resourcesIn.getEntries()) {
+                if (!e.isDirectory() && !out.contains(e.getName()))
+                    out.copy(resourcesIn, e);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-            });
+    private byte[] applyPatch(ClassPatch patch, byte[] data) throws IOException {
+        log("\t%s (%s) (input size %d)", patch.targetClassName, patch.sourceClassName, data.length);
+        int inputChecksum = adlerHash(data);
+        if (patch.inputChecksum != inputChecksum) {
+            throw new RuntimeException(String.format("There is a binary discrepency between the expected input class %s (%s) and the actual class. Checksum on disk is %x, in patch %x. Things are probably about to go very wrong. Did you put something into the jar file?", patch.targetClassName, patch.sourceClassName, inputChecksum, patch.inputChecksum));
         }
+        return patcher.get().patch(data, patch.patch);
     }
 
     private int adlerHash(byte[] input) {
@@ -156,11 +148,7 @@ public class TaskApplyBinPatches extends CachedTask {
 
         JarInputStream jis;
         try {
-            LzmaInputStream binpatchesDecompressed = new LzmaInputStream(Files.newInputStream(getPatches().toPath()), new Decoder());
-            ByteArrayOutputStream jarBytes = new ByteArrayOutputStream();
-            JarOutputStream jos = new JarOutputStream(jarBytes);
-            Pack200.newUnpacker().unpack(binpatchesDecompressed, jos);
-            jis = new JarInputStream(new ByteArrayInputStream(jarBytes.toByteArray()));
+            jis = new JarInputStream(BinPatchFormat.decode(Files.newInputStream(getPatches().toPath())));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -183,12 +171,14 @@ public class TaskApplyBinPatches extends CachedTask {
             }
         } while (true);
         log("Read %d binary patches", patchlist.size());
-        log("Patch list :\n\t%s", Joiner.on("\n\t").join(patchlist.entrySet()));
+        if (getLogger().isDebugEnabled())
+            log("Patch list :\n\t%s", Joiner.on("\n\t").join(patchlist.entrySet()));
     }
 
     private ClassPatch readPatch(JarEntry patchEntry, JarInputStream jis) throws IOException {
         log("\t%s", patchEntry.getName());
-        ByteArrayDataInput input = ByteStreams.newDataInput(ByteStreams.toByteArray(jis));
+        // read straight off the entry, only the diff itself is kept
+        DataInputStream input = new DataInputStream(jis);
 
         String name = input.readUTF();
         String sourceClassName = input.readUTF();
@@ -206,7 +196,8 @@ public class TaskApplyBinPatches extends CachedTask {
     }
 
     private void log(String format, Object... args) {
-        getLogger().debug(String.format(format, args));
+        if (getLogger().isDebugEnabled())
+            getLogger().debug(String.format(format, args));
     }
 
     public File getInJar() {
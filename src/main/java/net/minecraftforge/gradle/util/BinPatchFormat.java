@@ -0,0 +1,173 @@
+/*
+ * A Gradle plugin for the creation of Minecraft mods and MinecraftForge plugins.
+ * Copyright (C) 2013 Minecraft Forge
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package net.minecraftforge.gradle.util;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.SortedMap;
+import java.util.jar.JarInputStream;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Pack200;
+import java.util.jar.Pack200.Packer;
+
+import lzma.sdk.lzma.Decoder;
+import lzma.streams.LzmaInputStream;
+import lzma.streams.LzmaOutputStream;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Container formats for binpatch archives. Everything except {@link #PACK200_LZMA}
+ * starts with a small header so readers can tell the formats apart; the legacy
+ * format stays headerless because that is what the runtime loader expects.
+ */
+public enum BinPatchFormat {
+    /** Pack200 then LZMA. The legacy format, needs a JDK that still ships Pack200. */
+    PACK200_LZMA(false),
+    /** A plain deflated jar. */
+    JAR(false),
+    /** An uncompressed jar wrapped in LZMA. */
+    JAR_LZMA(true);
+
+    private static final byte[] MAGIC = { 'F', 'G', 'B', 'P' };
+    private static final Object PACK_LOCK = new Object();
+
+    private final boolean storeEntries;
+
+    BinPatchFormat(boolean storeEntries) {
+        this.storeEntries = storeEntries;
+    }
+
+    /**
+     * @return TRUE if the jar handed to {@link #encode(byte[])} should have its entries STORED rather than deflated
+     */
+    public boolean isStoreEntries() {
+        return storeEntries;
+    }
+
+    public byte[] encode(byte[] jar) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(jar.length);
+
+        if (this == PACK200_LZMA) {
+            compress(pack200(jar), out);
+            return out.toByteArray();
+        }
+
+        out.write(MAGIC);
+        out.write(ordinal());
+
+        switch (this) {
+            case JAR:
+                out.write(jar);
+                break;
+            case JAR_LZMA:
+                compress(jar, out);
+                break;
+            default:
+                throw new IllegalStateException(name());
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads the header of the archive and returns a stream of the jar inside it.
+     * Archives without a header are treated as {@link #PACK200_LZMA}.
+     */
+    public static InputStream decode(InputStream in) throws IOException {
+        in = new BufferedInputStream(in);
+        in.mark(MAGIC.length + 1);
+
+        byte[] header = new byte[MAGIC.length + 1];
+        int read = ByteStreams.read(in, header, 0, header.length);
+
+        BinPatchFormat format = PACK200_LZMA;
+        if (read == header.length && header[0] == MAGIC[0] && header[1] == MAGIC[1] && header[2] == MAGIC[2] && header[3] == MAGIC[3]) {
+            int id = header[MAGIC.length] & 0xFF;
+            if (id >= values().length)
+                throw new IOException("Unknown binpatch format " + id);
+            format = values()[id];
+        } else {
+            in.reset();
+        }
+
+        switch (format) {
+            case PACK200_LZMA:
+                // Pack200 can only unpack into a JarOutputStream, so this one has to be buffered
+                ExposedByteArrayOutputStream jarBytes = new ExposedByteArrayOutputStream();
+                try (JarOutputStream jos = new JarOutputStream(jarBytes)) {
+                    Pack200.newUnpacker().unpack(new LzmaInputStream(in, new Decoder()), jos);
+                }
+                return jarBytes.toInputStream();
+            case JAR:
+                return in;
+            case JAR_LZMA:
+                return new LzmaInputStream(in, new Decoder());
+            default:
+                throw new IllegalStateException(format.name());
+        }
+    }
+
+    private static byte[] pack200(byte[] data) throws IOException {
+        JarInputStream in = new JarInputStream(new ByteArrayInputStream(data));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Packer packer = Pack200.newPacker();
+
+        SortedMap<String, String> props = packer.properties();
+        props.put(Packer.EFFORT, "9");
+        props.put(Packer.KEEP_FILE_ORDER, Packer.TRUE);
+        props.put(Packer.UNKNOWN_ATTRIBUTE, Packer.PASS);
+
+        // System.err is global, so only one pack may swap it at a time or the real one could get lost
+        synchronized (PACK_LOCK) {
+            final PrintStream err = System.err;
+            System.setErr(new PrintStream(ByteStreams.nullOutputStream()));
+            try {
+                packer.pack(in, out);
+            } finally {
+                System.setErr(err);
+            }
+        }
+
+        in.close();
+        out.close();
+
+        return out.toByteArray();
+    }
+
+    private static void compress(byte[] data, OutputStream out) throws IOException {
+        LzmaOutputStream lzma = new LzmaOutputStream.Builder(out).useEndMarkerMode(true).build();
+        lzma.write(data);
+        lzma.close();
+    }
+
+    private static class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+        InputStream toInputStream() {
+            // no copy of the buffer
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+}
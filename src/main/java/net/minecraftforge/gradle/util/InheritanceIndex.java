@@ -0,0 +1,303 @@
+/*
+ * A Gradle plugin for the creation of Minecraft mods and MinecraftForge plugins.
+ * Copyright (C) 2013 Minecraft Forge
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package net.minecraftforge.gradle.util;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import net.md_5.specialsource.provider.InheritanceProvider;
+import net.minecraftforge.gradle.common.Constants;
+import org.gradle.api.Project;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Answers inheritance queries for a classpath without loading any classes.
+ * The superclass and interfaces of every class in a jar are indexed once, then kept in a
+ * binary file keyed by the jar's path, size and timestamp, and shared by every build in the daemon.
+ * Directories are read directly, and anything not on the classpath is looked up in the JDK.
+ */
+public class InheritanceIndex implements InheritanceProvider {
+    private static final int MAGIC = 0x494E4831; // INH1
+    private static final Cache<String, Map<String, String[]>> TABLES = CacheBuilder.newBuilder().maximumSize(64).softValues().build();
+
+    private final File cacheDir;
+    private final List<File> classpath = Lists.newArrayList();
+    private final List<Map<String, String[]>> tables = Lists.newArrayList();
+    private final Map<String, Collection<String>> resolved = Maps.newHashMap();
+
+    public InheritanceIndex(Iterable<File> classpath, File cacheDir) {
+        this.cacheDir = cacheDir;
+        for (File f : classpath) {
+            this.classpath.add(f);
+            this.tables.add(null);
+        }
+    }
+
+    public static File getCacheDir(Project project) {
+        return new File(project.getGradle().getGradleUserHomeDir(), "caches/minecraft/inheritance");
+    }
+
+    @Override
+    public Collection<String> getParents(String className) {
+        if (resolved.containsKey(className))
+            return resolved.get(className);
+
+        String[] info = null;
+        try {
+            info = find(className);
+        } catch (IOException e) {
+            Throwables.throwIfUnchecked(e);
+            throw new RuntimeException(e);
+        }
+
+        Collection<String> parents = null;
+        if (info != null) {
+            // same order as SpecialSource's own providers, interfaces then super
+            parents = Lists.newArrayList(Arrays.asList(info).subList(1, info.length));
+            if (info[0] != null)
+                parents.add(info[0]);
+            parents = Collections.unmodifiableCollection(parents);
+        }
+
+        resolved.put(className, parents);
+        return parents;
+    }
+
+    private String[] find(String className) throws IOException {
+        for (int i = 0; i < classpath.size(); i++) {
+            File f = classpath.get(i);
+            if (f.isDirectory()) {
+                File cls = new File(f, className + ".class");
+                if (cls.isFile()) {
+                    try (InputStream in = new FileInputStream(cls)) {
+                        return read(in);
+                    }
+                }
+            } else if (f.isFile()) {
+                Map<String, String[]> table = tables.get(i);
+                if (table == null) {
+                    table = getTable(f);
+                    tables.set(i, table);
+                }
+
+                String[] info = table.get(className);
+                if (info != null)
+                    return info;
+            }
+        }
+
+        // JDK classes
+        InputStream in = ClassLoader.getSystemResourceAsStream(className + ".class");
+        if (in != null) {
+            try {
+                return read(in);
+            } finally {
+                in.close();
+            }
+        }
+
+        return null;
+    }
+
+    private Map<String, String[]> getTable(final File jar) throws IOException {
+        final String key = Constants.hash(jar.getAbsolutePath() + "|" + jar.length() + "|" + jar.lastModified());
+        try {
+            return TABLES.get(key, () -> {
+                File index = new File(cacheDir, key + ".idx");
+                if (index.isFile()) {
+                    try {
+                        return readIndex(index);
+                    } catch (IOException e) {
+                        // corrupt, just rebuild it
+                    }
+                }
+
+                Map<String, String[]> table = buildIndex(jar);
+                writeIndex(index, table);
+                return table;
+            });
+        } catch (ExecutionException e) {
+            Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Reads just the class header. ASM refuses class versions it doesnt know, which would rule out newer JDKs.
+     */
+    private static String[] read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != 0xCAFEBABE)
+            throw new IOException("Not a class file");
+        in.readInt(); // version
+
+        // only class entries are kept, everything else is skipped
+        int count = in.readUnsignedShort();
+        String[] utf8 = new String[count];
+        int[] classes = new int[count];
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: // Utf8
+                    utf8[i] = in.readUTF();
+                    break;
+                case 7: // Class
+                    classes[i] = in.readUnsignedShort();
+                    break;
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    in.skipBytes(2);
+                    break;
+                case 15: // MethodHandle
+                    in.skipBytes(3);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    in.skipBytes(4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    in.skipBytes(8);
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+
+        in.skipBytes(4); // access, this
+        int superIndex = in.readUnsignedShort();
+        String[] info = new String[in.readUnsignedShort() + 1];
+        info[0] = superIndex == 0 ? null : utf8[classes[superIndex]];
+        for (int i = 1; i < info.length; i++)
+            info[i] = utf8[classes[in.readUnsignedShort()]];
+        return info;
+    }
+
+    private static Map<String, String[]> buildIndex(File jar) throws IOException {
+        Map<String, String[]> table = Maps.newHashMap();
+        try (ZipFile zip = new ZipFile(jar)) {
+            for (ZipEntry e : Collections.list(zip.entries())) {
+                String name = e.getName();
+                if (e.isDirectory() || !name.endsWith(".class"))
+                    continue;
+
+                try (InputStream in = zip.getInputStream(e)) {
+                    table.put(name.substring(0, name.length() - 6), read(in));
+                } catch (IOException ex) {
+                    // not a class file, SpecialSource wouldnt read it either
+                }
+            }
+        }
+        return table;
+    }
+
+    private static void writeIndex(File index, Map<String, String[]> table) throws IOException {
+        // every name is written once, classes refer to them by index
+        Map<String, Integer> ids = Maps.newHashMap();
+        List<String> strings = Lists.newArrayList();
+        for (Map.Entry<String, String[]> e : table.entrySet()) {
+            intern(e.getKey(), ids, strings);
+            for (String s : e.getValue())
+                intern(s, ids, strings);
+        }
+
+        index.getParentFile().mkdirs();
+        File temp = new File(index.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(strings.size());
+            for (String s : strings)
+                out.writeUTF(s);
+
+            out.writeInt(table.size());
+            for (Map.Entry<String, String[]> e : table.entrySet()) {
+                out.writeInt(ids.get(e.getKey()));
+                out.writeShort(e.getValue().length);
+                for (String s : e.getValue())
+                    out.writeInt(s == null ? -1 : ids.get(s));
+            }
+        }
+
+        if (index.exists())
+            index.delete();
+        if (!temp.renameTo(index))
+            temp.delete(); // someone else was faster, the index is only a cache anyway
+    }
+
+    private static void intern(String s, Map<String, Integer> ids, List<String> strings) {
+        if (s != null && !ids.containsKey(s)) {
+            ids.put(s, strings.size());
+            strings.add(s);
+        }
+    }
+
+    private static Map<String, String[]> readIndex(File index) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(index)))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException("Not an inheritance index: " + index);
+
+            String[] strings = new String[in.readInt()];
+            for (int i = 0; i < strings.length; i++)
+                strings[i] = in.readUTF();
+
+            int count = in.readInt();
+            Map<String, String[]> table = Maps.newHashMapWithExpectedSize(count);
+            for (int i = 0; i < count; i++) {
+                String name = strings[in.readInt()];
+                String[] info = new String[in.readUnsignedShort()];
+                for (int j = 0; j < info.length; j++) {
+                    int id = in.readInt();
+                    info[j] = id == -1 ? null : strings[id];
+                }
+                table.put(name, info);
+            }
+            return table;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * A Gradle plugin for the creation of Minecraft mods and MinecraftForge plugins.
+ * Copyright (C) 2013 Minecraft Forge
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package net.minecraftforge.gradle.util;
+
+import java.util.regex.Pattern;
+
+/**
+ * Reduces a java source file to what other files can see of it: the package, imports and the declarations of its
+ * types and members. Comments are dropped, literals are blanked, and every block that is not a type body (method
+ * bodies, initializers, lambdas, anonymous classes) is collapsed to {@code {}}.
+ * <p>
+ * This is a plain text scan, not a parser. It only has to be stable for the same declarations and change when they
+ * change, so field initializers and annotation values are kept and anything it is unsure of is kept too.
+ */
+public final class JavaSignatures {
+    private static final Pattern TYPE_HEADER = Pattern.compile("(^|[^.\\w$])(class|interface|enum)\\b");
+
+    private JavaSignatures() {}
+
+    public static String strip(String source) {
+        String code = stripComments(source);
+
+        StringBuilder out = new StringBuilder(code.length() / 2);
+        StringBuilder header = new StringBuilder();
+        int dropped = 0; // depth inside a collapsed block
+
+        for (int i = 0; i < code.length(); i++) {
+            char c = code.charAt(i);
+
+            if (dropped > 0) {
+                if (c == '{')
+                    dropped++;
+                else if (c == '}')
+                    dropped--;
+                continue;
+            }
+
+            switch (c) {
+                case '{':
+                    if (TYPE_HEADER.matcher(header).find()) {
+                        out.append('{');
+                    } else {
+                        out.append("{}");
+                        dropped = 1;
+                    }
+                    header.setLength(0);
+                    break;
+                case '}':
+                    out.append('}');
+                    header.setLength(0);
+                    break;
+                case ';':
+                    out.append(';');
+                    header.setLength(0);
+                    break;
+                default:
+                    if (Character.isWhitespace(c)) {
+                        // any run of whitespace is one space, so formatting changes dont count
+                        if (out.length() > 0 && out.charAt(out.length() - 1) != ' ')
+                            out.append(' ');
+                        header.append(' ');
+                    } else {
+                        out.append(c);
+                        header.append(c);
+                    }
+            }
+        }
+
+        return out.toString().trim();
+    }
+
+    /**
+     * Removes comments and replaces string and char literals with empty ones, so braces inside them dont count.
+     */
+    private static String stripComments(String source) {
+        StringBuilder out = new StringBuilder(source.length());
+        int len = source.length();
+        for (int i = 0; i < len; i++) {
+            char c = source.charAt(i);
+            char next = i + 1 < len ? source.charAt(i + 1) : 0;
+
+            if (c == '/' && next == '/') {
+                while (i < len && source.charAt(i) != '\n')
+                    i++;
+                out.append('\n');
+            } else if (c == '/' && next == '*') {
+                int end = source.indexOf("*/", i + 2);
+                i = end < 0 ? len : end + 1;
+                out.append(' ');
+            } else if (c == '"' || c == '\'') {
+                for (i++; i < len && source.charAt(i) != c; i++) {
+                    if (source.charAt(i) == '\\')
+                        i++;
+                }
+                out.append(c).append(c);
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+}
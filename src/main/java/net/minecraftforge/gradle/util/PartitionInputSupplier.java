@@ -0,0 +1,71 @@
+/*
+ * A Gradle plugin for the creation of Minecraft mods and MinecraftForge plugins.
+ * Copyright (C) 2013 Minecraft Forge
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package net.minecraftforge.gradle.util;
+
+import net.minecraftforge.srg2source.util.io.InputSupplier;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A view of another supplier that only lists the files assigned to one partition.
+ * Files missing from the assignment map belong to partition 0.
+ * The wrapped supplier is shared between partitions and is not closed by this.
+ */
+public class PartitionInputSupplier implements InputSupplier {
+    private final InputSupplier parent;
+    private final Map<String, Integer> partitions;
+    private final int partition;
+
+    public PartitionInputSupplier(InputSupplier parent, Map<String, Integer> partitions, int partition) {
+        this.parent = parent;
+        this.partitions = partitions;
+        this.partition = partition;
+    }
+
+    @Override
+    public String getRoot(String resource) {
+        return parent.getRoot(resource);
+    }
+
+    @Override
+    public InputStream getInput(String relPath) {
+        return parent.getInput(relPath);
+    }
+
+    @Override
+    public List<String> gatherAll(String endFilter) {
+        List<String> out = new LinkedList<>();
+        for (String path : parent.gatherAll(endFilter)) {
+            Integer assigned = partitions.get(path);
+            if ((assigned == null ? 0 : assigned) == partition)
+                out.add(path);
+        }
+        return out;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // the parent is closed by its owner
+    }
+}
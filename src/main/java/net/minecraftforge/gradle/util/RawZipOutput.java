@@ -0,0 +1,234 @@
+/*
+ * A Gradle plugin for the creation of Minecraft mods and MinecraftForge plugins.
+ * Copyright (C) 2013 Minecraft Forge
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package net.minecraftforge.gradle.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Writes a zip where untouched entries are copied from a {@link ZipIndex} as they are,
+ * compressed data and CRC included. Only entries added with {@link #putEntry(String, long, byte[])}
+ * are deflated. Zip64 is not supported, so this is limited to 65535 entries and 4GB.
+ */
+public class RawZipOutput implements Closeable {
+    private static final int FLAG_UTF8 = 1 << 11;
+    private static final int VERSION = 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteArrayOutputStream central = new ByteArrayOutputStream();
+    private final ByteBuffer centralHeader = ByteBuffer.allocate(ZipIndex.CENTRAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final Set<String> names = Sets.newHashSet();
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final CRC32 crc = new CRC32();
+    private byte[] deflated = new byte[1 << 16];
+    private long position = 0;
+
+    public RawZipOutput(File file) throws IOException {
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * @return TRUE if an entry with this name was already written
+     */
+    public boolean contains(String name) {
+        return names.contains(name);
+    }
+
+    /**
+     * Copies the entry without inflating it.
+     */
+    public void copy(ZipIndex source, ZipIndex.Entry entry) throws IOException {
+        byte[] name = addName(entry.name);
+        writeHeaders(name, entry.method, entry.dosTime, entry.crc, entry.compressedSize, entry.size);
+        flush();
+        source.transferRaw(entry, channel);
+        position += entry.compressedSize;
+    }
+
+    public void putDirectory(String name, long time) throws IOException {
+        byte[] bytes = addName(name.endsWith("/") ? name : name + "/");
+        writeHeaders(bytes, ZipEntry.STORED, javaToDosTime(time), 0, 0, 0);
+    }
+
+    /**
+     * Writes a new or modified entry, deflating it.
+     */
+    public void putEntry(String name, long time, byte[] data) throws IOException {
+        byte[] bytes = addName(name);
+
+        crc.reset();
+        crc.update(data);
+
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+        int len = 0;
+        while (!deflater.finished()) {
+            if (len == deflated.length)
+                deflated = Arrays.copyOf(deflated, deflated.length * 2);
+            len += deflater.deflate(deflated, len, deflated.length - len);
+        }
+
+        writeHeaders(bytes, ZipEntry.DEFLATED, javaToDosTime(time), crc.getValue(), len, data.length);
+        write(deflated, len);
+    }
+
+    private byte[] addName(String name) throws IOException {
+        if (!names.add(name))
+            throw new ZipException("duplicate entry: " + name);
+        if (names.size() > 0xFFFF)
+            throw new ZipException("Too many entries, zip64 is not supported");
+        return name.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void writeHeaders(byte[] name, int method, int dosTime, long crc, long compressedSize, long size) throws IOException {
+        if (position > 0xFFFFFFFFL || compressedSize > 0xFFFFFFFFL || size > 0xFFFFFFFFL)
+            throw new ZipException("Output too large, zip64 is not supported");
+
+        centralHeader.clear();
+        centralHeader.putInt(ZipIndex.CENTRAL_SIG);
+        centralHeader.putShort((short) VERSION);
+        centralHeader.putShort((short) VERSION);
+        centralHeader.putShort((short) FLAG_UTF8);
+        centralHeader.putShort((short) method);
+        centralHeader.putInt(dosTime);
+        centralHeader.putInt((int) crc);
+        centralHeader.putInt((int) compressedSize);
+        centralHeader.putInt((int) size);
+        centralHeader.putShort((short) name.length);
+        centralHeader.putShort((short) 0); // extra
+        centralHeader.putShort((short) 0); // comment
+        centralHeader.putShort((short) 0); // disk
+        centralHeader.putShort((short) 0); // internal attributes
+        centralHeader.putInt(0);           // external attributes
+        centralHeader.putInt((int) position);
+        central.write(centralHeader.array(), 0, ZipIndex.CENTRAL_HEADER_SIZE);
+        central.write(name);
+
+        ensure(ZipIndex.LOCAL_HEADER_SIZE + name.length);
+        buffer.putInt(ZipIndex.LOCAL_SIG);
+        buffer.putShort((short) VERSION);
+        buffer.putShort((short) FLAG_UTF8);
+        buffer.putShort((short) method);
+        buffer.putInt(dosTime);
+        buffer.putInt((int) crc);
+        buffer.putInt((int) compressedSize);
+        buffer.putInt((int) size);
+        buffer.putShort((short) name.length);
+        buffer.putShort((short) 0);
+        buffer.put(name);
+        position += ZipIndex.LOCAL_HEADER_SIZE + name.length;
+    }
+
+    private void write(byte[] data, int len) throws IOException {
+        if (len > buffer.remaining()) {
+            flush();
+            if (len > buffer.capacity()) {
+                writeFully(ByteBuffer.wrap(data, 0, len));
+                position += len;
+                return;
+            }
+        }
+        buffer.put(data, 0, len);
+        position += len;
+    }
+
+    private void ensure(int len) throws IOException {
+        if (len > buffer.remaining())
+            flush();
+        if (len > buffer.capacity())
+            throw new ZipException("Entry name too long");
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining())
+            channel.write(buf);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            long cdOffset = position;
+            byte[] cd = central.toByteArray();
+            write(cd, cd.length);
+
+            if (cdOffset > 0xFFFFFFFFL)
+                throw new ZipException("Output too large, zip64 is not supported");
+
+            ensure(ZipIndex.END_SIZE);
+            buffer.putInt(ZipIndex.END_SIG);
+            buffer.putShort((short) 0);
+            buffer.putShort((short) 0);
+            buffer.putShort((short) names.size());
+            buffer.putShort((short) names.size());
+            buffer.putInt(cd.length);
+            buffer.putInt((int) cdOffset);
+            buffer.putShort((short) 0);
+            flush();
+        } finally {
+            deflater.end();
+            channel.close();
+        }
+    }
+
+    static int javaToDosTime(long time) {
+        LocalDateTime date = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+        int year = date.getYear();
+        if (year < 1980)
+            return (1 << 21) | (1 << 16);
+        return (year - 1980) << 25 | date.getMonthValue() << 21 | date.getDayOfMonth() << 16 | date.getHour() << 11 | date.getMinute() << 5 | date.getSecond() >> 1;
+    }
+
+    static long dosToJavaTime(int dos) {
+        try {
+            LocalDateTime date = LocalDateTime.of(((dos >> 25) & 0x7F) + 1980, (dos >> 21) & 0x0F, (dos >> 16) & 0x1F, (dos >> 11) & 0x1F, (dos >> 5) & 0x3F, (dos << 1) & 0x3E);
+            return date.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeException e) {
+            return -1; // garbage in the source zip
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * A Gradle plugin for the creation of Minecraft mods and MinecraftForge plugins.
+ * Copyright (C) 2013 Minecraft Forge
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package net.minecraftforge.gradle.util;
+
+import net.minecraftforge.srg2source.util.io.OutputSupplier;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Lets several threads write to one supplier, zips included.
+ * Each output is buffered in memory and handed to the wrapped supplier in one go when it is closed.
+ * The wrapped supplier is not closed by this.
+ */
+public class SynchronizedOutputSupplier implements OutputSupplier {
+    private final OutputSupplier parent;
+
+    public SynchronizedOutputSupplier(OutputSupplier parent) {
+        this.parent = parent;
+    }
+
+    @Override
+    public OutputStream getOutput(final String relPath) {
+        return new ByteArrayOutputStream() {
+            private boolean closed = false;
+
+            @Override
+            public void close() throws IOException {
+                if (closed)
+                    return;
+                closed = true;
+
+                synchronized (parent) {
+                    OutputStream out = parent.getOutput(relPath);
+                    if (out == null)
+                        throw new IOException("Could not open output: " + relPath);
+                    try {
+                        writeTo(out);
+                    } finally {
+                        out.close();
+                    }
+                }
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        // the parent is closed by its owner
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * A Gradle plugin for the creation of Minecraft mods and MinecraftForge plugins.
+ * Copyright (C) 2013 Minecraft Forge
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package net.minecraftforge.gradle.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+import org.gradle.api.file.FilePermissions;
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.file.UserClassFilePermissions;
+
+/**
+ * A {@link FileTreeElement} backed by an entry of a {@link ZipIndex}, so pattern specs can be
+ * checked against jar contents without Gradle extracting every entry first.
+ * Only {@link #getFile()} extracts, into a temporary file the first time it is asked for.
+ */
+public class ZipEntryElement implements FileTreeElement {
+    private static final int FILE_MODE = 0644;
+    private static final int DIR_MODE = 0755;
+
+    private final ZipIndex index;
+    private final ZipIndex.Entry entry;
+    private RelativePath relativePath;
+    private File file;
+
+    public ZipEntryElement(ZipIndex index, ZipIndex.Entry entry) {
+        this.index = index;
+        this.entry = entry;
+    }
+
+    public ZipIndex.Entry getEntry() {
+        return entry;
+    }
+
+    @Override
+    public synchronized File getFile() {
+        if (file == null) {
+            try {
+                File temp;
+                if (entry.isDirectory()) {
+                    temp = Files.createTempDirectory("zipentry").toFile();
+                } else {
+                    // keep the name, some specs look at the extension of the file
+                    temp = File.createTempFile("zipentry", "-" + getName());
+                    Files.write(temp.toPath(), index.read(entry));
+                }
+                temp.setLastModified(getLastModified());
+                temp.deleteOnExit();
+                file = temp;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return file;
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return entry.isDirectory();
+    }
+
+    @Override
+    public long getLastModified() {
+        return entry.getTime();
+    }
+
+    @Override
+    public long getSize() {
+        return entry.getSize();
+    }
+
+    @Override
+    public InputStream open() {
+        try {
+            return index.getInputStream(entry);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void copyTo(OutputStream output) {
+        try {
+            output.write(index.read(entry));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public boolean copyTo(File target) {
+        try {
+            target.getParentFile().mkdirs();
+            Files.write(target.toPath(), index.read(entry));
+            target.setLastModified(getLastModified());
+            return true;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return getRelativePath().getLastName();
+    }
+
+    @Override
+    public String getPath() {
+        return getRelativePath().getPathString();
+    }
+
+    @Override
+    public RelativePath getRelativePath() {
+        if (relativePath == null)
+            relativePath = RelativePath.parse(!entry.isDirectory(), entry.getName());
+        return relativePath;
+    }
+
+    // still abstract on older Gradle versions
+    public int getMode() {
+        return entry.isDirectory() ? DIR_MODE : FILE_MODE;
+    }
+
+    @Override
+    public FilePermissions getPermissions() {
+        return new ModePermissions(getMode());
+    }
+
+    @Override
+    public String toString() {
+        return index.getFile().getName() + "!" + entry.getName();
+    }
+
+    private static class ModePermissions implements FilePermissions {
+        private final int mode;
+
+        ModePermissions(int mode) {
+            this.mode = mode;
+        }
+
+        @Override
+        public UserClassFilePermissions getUser() {
+            return new ClassPermissions(mode >> 6);
+        }
+
+        @Override
+        public UserClassFilePermissions getGroup() {
+            return new ClassPermissions(mode >> 3);
+        }
+
+        @Override
+        public UserClassFilePermissions getOther() {
+            return new ClassPermissions(mode);
+        }
+
+        @Override
+        public int toUnixNumeric() {
+            return mode;
+        }
+    }
+
+    private static class ClassPermissions implements UserClassFilePermissions {
+        private final int bits;
+
+        ClassPermissions(int bits) {
+            this.bits = bits & 7;
+        }
+
+        @Override
+        public boolean getRead() {
+            return (bits & 4) != 0;
+        }
+
+        @Override
+        public boolean getWrite() {
+            return (bits & 2) != 0;
+        }
+
+        @Override
+        public boolean getExecute() {
+            return (bits & 1) != 0;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * A Gradle plugin for the creation of Minecraft mods and MinecraftForge plugins.
+ * Copyright (C) 2013 Minecraft Forge
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package net.minecraftforge.gradle.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.specs.Spec;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Extracts archives straight from their {@link ZipIndex}, in parallel. Files that already
+ * match an entry by size and CRC are left alone, and cleaning only removes what the archives
+ * no longer contain instead of wiping the whole directory.
+ */
+public class ZipExtractor {
+    private final File outputDir;
+    private final boolean emptyDirs;
+    private final Spec<FileTreeElement> spec;
+
+    public ZipExtractor(File outDir, boolean emptyDirs, Spec<FileTreeElement> spec) {
+        this.outputDir = outDir;
+        this.emptyDirs = emptyDirs;
+        this.spec = spec;
+    }
+
+    /**
+     * @param archives the archives to extract, later ones win when paths collide
+     * @param clean    delete files in the output that none of the archives provided
+     */
+    public void extract(Iterable<File> archives, boolean clean, Logger logger) throws IOException {
+        List<ZipIndex> indexes = Lists.newArrayList();
+        ExecutorService executor = null;
+
+        try {
+            Map<String, Callable<Boolean>> files = Maps.newLinkedHashMap();
+            Set<String> dirs = Sets.newHashSet();
+            String root = outputDir.getCanonicalPath() + File.separator;
+
+            for (File archive : archives) {
+                logger.debug("Extracting: {}", archive);
+                final ZipIndex index = new ZipIndex(archive);
+                indexes.add(index);
+
+                for (final ZipIndex.Entry entry : index.getEntries()) {
+                    ZipEntryElement element = new ZipEntryElement(index, entry);
+                    if (!spec.isSatisfiedBy(element))
+                        continue;
+
+                    final String path = element.getPath();
+                    final File target = resolve(root, archive, path);
+                    if (entry.isDirectory()) {
+                        if (emptyDirs)
+                            dirs.add(path);
+                    } else {
+                        files.put(path, () -> extractEntry(index, entry, target));
+                    }
+                }
+            }
+
+            if (clean) {
+                deleteStale(outputDir, "", files.keySet(), dirs);
+            }
+
+            outputDir.mkdirs();
+            for (String dir : dirs) {
+                new File(outputDir, dir).mkdirs();
+            }
+
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            int written = 0;
+            for (Future<Boolean> future : executor.invokeAll(files.values())) {
+                if (future.get())
+                    written++;
+            }
+
+            logger.debug("Extracted {} files into {}, {} were already up to date", written, outputDir, files.size() - written);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting", e);
+        } catch (ExecutionException e) {
+            Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        } finally {
+            if (executor != null)
+                executor.shutdownNow();
+            for (ZipIndex index : indexes)
+                index.close();
+        }
+    }
+
+    /**
+     * Refuses entries like "../foo" or absolute paths, nothing may be written outside the output directory.
+     */
+    private File resolve(String root, File archive, String path) throws IOException {
+        File target = new File(outputDir, path);
+        if (!(target.getCanonicalPath() + File.separator).startsWith(root))
+            throw new IOException("Entry " + path + " of " + archive + " is outside of " + outputDir);
+        return target;
+    }
+
+    /**
+     * @return FALSE if the file on disk already matched
+     */
+    private static boolean extractEntry(ZipIndex index, ZipIndex.Entry entry, File target) throws IOException {
+        if (target.isFile() && target.length() == entry.getSize() && crc(target) == entry.getCrc())
+            return false;
+
+        byte[] data = index.read(entry);
+        target.getParentFile().mkdirs();
+
+        // the size is known up front, so this is a single write into a file of the right length
+        try (FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.wrap(data);
+            while (buf.hasRemaining())
+                channel.write(buf);
+        }
+
+        long time = entry.getTime();
+        if (time >= 0)
+            target.setLastModified(time);
+        return true;
+    }
+
+    private static long crc(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buf = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int len;
+            while ((len = in.read(buf)) > 0)
+                crc.update(buf, 0, len);
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * @return TRUE if the directory is empty afterwards
+     */
+    private static boolean deleteStale(File dir, String prefix, Set<String> files, Set<String> dirs) {
+        File[] children = dir.listFiles();
+        if (children == null)
+            return false;
+
+        boolean empty = true;
+        for (File child : children) {
+            String path = prefix + child.getName();
+            if (child.isDirectory()) {
+                if (deleteStale(child, path + "/", files, dirs) && !dirs.contains(path))
+                    child.delete();
+                else
+                    empty = false;
+            } else if (!files.contains(path)) {
+                child.delete();
+            } else {
+                empty = false;
+            }
+        }
+        return empty;
+    }
+}
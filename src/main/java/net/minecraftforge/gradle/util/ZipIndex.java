@@ -0,0 +1,271 @@
+/*
+ * A Gradle plugin for the creation of Minecraft mods and MinecraftForge plugins.
+ * Copyright (C) 2013 Minecraft Forge
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package net.minecraftforge.gradle.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Reads the central directory of a zip so entries can be copied to a {@link RawZipOutput}
+ * without being inflated and deflated again. Zip64 archives are not supported.
+ */
+public class ZipIndex implements Closeable {
+    static final int LOCAL_SIG = 0x04034b50;
+    static final int CENTRAL_SIG = 0x02014b50;
+    static final int END_SIG = 0x06054b50;
+    static final int LOCAL_HEADER_SIZE = 30;
+    static final int CENTRAL_HEADER_SIZE = 46;
+    static final int END_SIZE = 22;
+
+    private final File file;
+    private final FileChannel channel;
+    private final List<Entry> entries;
+    private final Map<String, Entry> byName;
+
+    public ZipIndex(File file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+        try {
+            this.entries = readCentralDirectory();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        byName = Maps.newHashMapWithExpectedSize(entries.size());
+        for (Entry e : entries) {
+            byName.putIfAbsent(e.name, e);
+        }
+    }
+
+    /**
+     * @return the entries in the order of the central directory
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public Entry getEntry(String name) {
+        return byName.get(name);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Reads and inflates the entry.
+     */
+    public byte[] read(Entry entry) throws IOException {
+        byte[] raw = new byte[(int) entry.compressedSize];
+        ByteBuffer buf = ByteBuffer.wrap(raw);
+        long pos = getDataOffset(entry);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, pos + buf.position()) < 0)
+                throw new ZipException("Truncated entry " + entry.name + " in " + file);
+        }
+
+        if (entry.method == ZipEntry.STORED)
+            return raw;
+        if (entry.method != ZipEntry.DEFLATED)
+            throw new ZipException("Unsupported compression method " + entry.method + " for " + entry.name + " in " + file);
+
+        byte[] data = new byte[(int) entry.size];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(raw);
+            int read = 0;
+            while (read < data.length && !inflater.finished()) {
+                int n = inflater.inflate(data, read, data.length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                read += n;
+            }
+            if (read != data.length)
+                throw new ZipException("Bad size for " + entry.name + " in " + file);
+        } catch (DataFormatException e) {
+            throw new ZipException("Corrupt entry " + entry.name + " in " + file + ": " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+        return data;
+    }
+
+    public InputStream getInputStream(Entry entry) throws IOException {
+        return new ByteArrayInputStream(read(entry));
+    }
+
+    /**
+     * Copies the still compressed data of the entry to the target.
+     */
+    void transferRaw(Entry entry, WritableByteChannel target) throws IOException {
+        long pos = getDataOffset(entry);
+        long remaining = entry.compressedSize;
+        while (remaining > 0) {
+            long n = channel.transferTo(pos, remaining, target);
+            if (n <= 0)
+                throw new ZipException("Truncated entry " + entry.name + " in " + file);
+            pos += n;
+            remaining -= n;
+        }
+    }
+
+    private long getDataOffset(Entry entry) throws IOException {
+        if (entry.dataOffset < 0) {
+            ByteBuffer header = readFully(entry.headerOffset, LOCAL_HEADER_SIZE);
+            if (header.getInt(0) != LOCAL_SIG)
+                throw new ZipException("Bad local header for " + entry.name + " in " + file);
+            entry.dataOffset = entry.headerOffset + LOCAL_HEADER_SIZE + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+        }
+        return entry.dataOffset;
+    }
+
+    private List<Entry> readCentralDirectory() throws IOException {
+        long size = channel.size();
+        int tail = (int) Math.min(size, END_SIZE + 0xFFFF);
+        ByteBuffer buf = readFully(size - tail, tail);
+
+        int end = -1;
+        for (int i = tail - END_SIZE; i >= 0; i--) {
+            if (buf.getInt(i) == END_SIG) {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0)
+            throw new ZipException("Not a zip file: " + file);
+
+        int count = buf.getShort(end + 10) & 0xFFFF;
+        long cdSize = buf.getInt(end + 12) & 0xFFFFFFFFL;
+        long cdOffset = buf.getInt(end + 16) & 0xFFFFFFFFL;
+        if (count == 0xFFFF || cdOffset == 0xFFFFFFFFL)
+            throw new ZipException("Zip64 is not supported: " + file);
+
+        ByteBuffer cd = readFully(cdOffset, (int) cdSize);
+        List<Entry> list = Lists.newArrayListWithCapacity(count);
+        int pos = 0;
+        for (int i = 0; i < count; i++) {
+            if (cd.getInt(pos) != CENTRAL_SIG)
+                throw new ZipException("Bad central directory in " + file);
+
+            int nameLen = cd.getShort(pos + 28) & 0xFFFF;
+            int extraLen = cd.getShort(pos + 30) & 0xFFFF;
+            int commentLen = cd.getShort(pos + 32) & 0xFFFF;
+
+            byte[] name = new byte[nameLen];
+            cd.position(pos + CENTRAL_HEADER_SIZE);
+            cd.get(name);
+
+            list.add(new Entry(
+                    new String(name, StandardCharsets.UTF_8),
+                    cd.getShort(pos + 10) & 0xFFFF,
+                    cd.getInt(pos + 12),
+                    cd.getInt(pos + 16) & 0xFFFFFFFFL,
+                    cd.getInt(pos + 20) & 0xFFFFFFFFL,
+                    cd.getInt(pos + 24) & 0xFFFFFFFFL,
+                    cd.getInt(pos + 42) & 0xFFFFFFFFL));
+
+            pos += CENTRAL_HEADER_SIZE + nameLen + extraLen + commentLen;
+        }
+
+        return Collections.unmodifiableList(list);
+    }
+
+    private ByteBuffer readFully(long pos, int len) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(len).order(ByteOrder.LITTLE_ENDIAN);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, pos + buf.position()) < 0)
+                throw new ZipException("Unexpected end of " + file);
+        }
+        buf.flip();
+        return buf;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static class Entry {
+        final String name;
+        final int method;
+        final int dosTime;
+        final long crc;
+        final long compressedSize;
+        final long size;
+        final long headerOffset;
+        volatile long dataOffset = -1;
+
+        Entry(String name, int method, int dosTime, long crc, long compressedSize, long size, long headerOffset) {
+            this.name = name;
+            this.method = method;
+            this.dosTime = dosTime;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.headerOffset = headerOffset;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        public long getCrc() {
+            return crc;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getTime() {
+            return RawZipOutput.dosToJavaTime(dosTime);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,655 @@
+/*
+ * A Gradle plugin for the creation of Minecraft mods and MinecraftForge plugins.
+ * Copyright (C) 2013 Minecraft Forge
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package net.minecraftforge.gradle.util.mcp;
+
+import au.com.bytecode.opencsv.CSVReader;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+import net.minecraftforge.gradle.common.Constants;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * The MCP names from methods.csv, fields.csv and params.csv, loaded once per daemon and shared by every task that
+ * needs them. Each CSV is packed into sorted int arrays keyed by the numeric SRG id, so a lookup is a binary search
+ * instead of a string hash. The names themselves live in a shared string pool.
+ * A CSV is only read again when its fingerprint (path, size and modification time) changes.
+ * <p>
+ * If a compiled {@value #BINARY_NAME} sits next to the CSVs and was built from them, the data it points to is
+ * memory mapped instead of parsing the CSVs. See {@link #compile(File, File...)}.
+ */
+public final class McpMappings {
+    /**
+     * Name of the compiled mappings file, which is expected in the same folder as the CSVs.
+     * It only holds the name of the data file next to it, see {@link #compile(File, File...)}.
+     */
+    public static final String BINARY_NAME = "mappings.bin";
+
+    private static final int MAGIC = 0x4D435042; // MCPB
+    private static final int VERSION = 1;
+
+    private static final Interner<String> STRINGS = Interners.newWeakInterner();
+    private static final Cache<String, Table> TABLES = CacheBuilder.newBuilder().maximumSize(16).build();
+    private static final Cache<String, Binary> BINARIES = CacheBuilder.newBuilder().maximumSize(4).build();
+
+    private final Table methods;
+    private final Table fields;
+    private final Table params;
+
+    private McpMappings(Table methods, Table fields, Table params) {
+        this.methods = methods;
+        this.fields = fields;
+        this.params = params;
+    }
+
+    /**
+     * Gets the mappings for the given CSVs. Any of the files may be null, in which case that table is empty.
+     *
+     * @param methodsCsv methods.csv
+     * @param fieldsCsv  fields.csv
+     * @param paramsCsv  params.csv
+     * @return the shared mappings
+     * @throws IOException if one of the CSVs could not be read
+     */
+    public static McpMappings load(File methodsCsv, File fieldsCsv, File paramsCsv) throws IOException {
+        return new McpMappings(getTable(methodsCsv), getTable(fieldsCsv), getTable(paramsCsv));
+    }
+
+    public static McpMappings load(File methodsCsv, File fieldsCsv) throws IOException {
+        return load(methodsCsv, fieldsCsv, null);
+    }
+
+    private static Table getTable(final File csv) throws IOException {
+        if (csv == null)
+            return Table.EMPTY;
+
+        try {
+            return TABLES.get(fingerprint(csv), new Callable<Table>() {
+                @Override
+                public Table call() throws Exception {
+                    Table table = readCompiled(csv);
+                    return table != null ? table : Table.read(csv);
+                }
+            });
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    static String fingerprint(File file) throws IOException {
+        return file.getCanonicalPath() + '|' + file.length() + '|' + file.lastModified();
+    }
+
+    /**
+     * @param srg SRG name, eg: func_12345_a
+     * @return The MCP name, or null if there is none
+     */
+    public String getMethod(String srg) {
+        return methods.getName(srg);
+    }
+
+    public String getMethodDoc(String srg) {
+        return methods.getDoc(srg);
+    }
+
+    /**
+     * @param srg SRG name, eg: field_12345_a
+     * @return The MCP name, or null if there is none
+     */
+    public String getField(String srg) {
+        return fields.getName(srg);
+    }
+
+    public String getFieldDoc(String srg) {
+        return fields.getDoc(srg);
+    }
+
+    /**
+     * @param srg SRG name, eg: p_12345_1_
+     * @return The MCP name, or null if there is none
+     */
+    public String getParam(String srg) {
+        return params.getName(srg);
+    }
+
+    /**
+     * Looks up any SRG name, picking the table from the prefix of the name.
+     *
+     * @param srg SRG name of a method, field or parameter
+     * @return The MCP name, or null if there is none
+     */
+    public String get(String srg) {
+        if (srg.startsWith("func_"))
+            return methods.getName(srg);
+        else if (srg.startsWith("field_"))
+            return fields.getName(srg);
+        else if (srg.startsWith("p_"))
+            return params.getName(srg);
+
+        String name = methods.getName(srg);
+        return name != null ? name : fields.getName(srg);
+    }
+
+    /**
+     * @param srg SRG name of a method, field or parameter
+     * @return The MCP name, or the given name if there is none
+     */
+    public String remap(String srg) {
+        String name = get(srg);
+        return name == null ? srg : name;
+    }
+
+    // ----------------------------------
+    // compiled format
+    // ----------------------------------
+
+    /**
+     * Compiles the given CSVs into a single binary file that {@link #load(File, File, File)} can memory map.
+     * <pre>
+     * int magic, int version, int tableCount
+     * per table: str fileName, long length, long lastModified, str md5, int sortedCount, int irregularCount
+     * int stringCount, int[stringCount + 1] offsets, byte[] utf8 data
+     * per table: int[] ids, int[] prefixes, int[] suffixes, int[] names, int[] docs, int[] irregularKeys
+     * </pre>
+     * Strings are indexes into the string table, -1 is null. A str in the header is an int length and utf8 bytes.
+     * <p>
+     * The data goes to a file named after its own hash, and {@code out} only gets the name of that file. A data file
+     * is never written again once it exists, so one that is still mapped by this or another daemon is never replaced;
+     * on windows a mapped file cant be replaced or deleted until the mapping is garbage collected.
+     *
+     * @param out  file to write
+     * @param csvs the CSVs to compile
+     * @throws IOException if a CSV cant be read or the output cant be written
+     */
+    public static void compile(File out, File... csvs) throws IOException {
+        List<Table> tables = Lists.newArrayListWithCapacity(csvs.length);
+        for (File csv : csvs)
+            tables.add(Table.read(csv));
+
+        // merge all the string pools into one
+        Map<String, Integer> index = Maps.newHashMap();
+        List<String> strings = Lists.newArrayList();
+        List<int[][]> remapped = Lists.newArrayListWithCapacity(tables.size());
+        for (Table table : tables) {
+            int[][] arrays = new int[][]{table.prefixes, table.suffixes, table.names, table.docs, table.keys};
+            int[][] copy = new int[arrays.length][];
+            for (int a = 0; a < arrays.length; a++) {
+                copy[a] = new int[arrays[a].length];
+                for (int i = 0; i < arrays[a].length; i++) {
+                    String str = table.strings.get(arrays[a][i]);
+                    if (str == null) {
+                        copy[a][i] = -1;
+                        continue;
+                    }
+                    Integer idx = index.get(str);
+                    if (idx == null) {
+                        idx = strings.size();
+                        index.put(str, idx);
+                        strings.add(str);
+                    }
+                    copy[a][i] = idx;
+                }
+            }
+            remapped.add(copy);
+        }
+
+        File dir = out.getParentFile();
+        dir.mkdirs();
+        File temp = File.createTempFile(out.getName(), ".tmp", dir);
+        DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16));
+        try {
+            stream.writeInt(MAGIC);
+            stream.writeInt(VERSION);
+            stream.writeInt(tables.size());
+            for (int t = 0; t < tables.size(); t++) {
+                writeString(stream, csvs[t].getName());
+                stream.writeLong(csvs[t].length());
+                stream.writeLong(csvs[t].lastModified());
+                writeString(stream, Constants.hash(csvs[t]));
+                stream.writeInt(tables.get(t).ids.length);
+                stream.writeInt(tables.get(t).names.length - tables.get(t).ids.length);
+            }
+
+            byte[][] bytes = new byte[strings.size()][];
+            int offset = 0;
+            stream.writeInt(strings.size());
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = strings.get(i).getBytes(Constants.CHARSET);
+                stream.writeInt(offset);
+                offset += bytes[i].length;
+            }
+            stream.writeInt(offset);
+            for (byte[] b : bytes)
+                stream.write(b);
+
+            for (int t = 0; t < tables.size(); t++) {
+                writeInts(stream, tables.get(t).ids);
+                for (int[] array : remapped.get(t))
+                    writeInts(stream, array);
+            }
+        } finally {
+            stream.close();
+        }
+
+        String dataName = out.getName() + "-" + Constants.hash(temp);
+        File data = new File(dir, dataName);
+        if (data.isFile())
+            temp.delete(); // same content, possibly mapped already
+        else
+            moveAtomic(temp, data);
+
+        // only the small pointer file is replaced, nothing ever maps it
+        File pointer = File.createTempFile(out.getName(), ".tmp", dir);
+        Files.write(pointer.toPath(), dataName.getBytes(Constants.CHARSET));
+        moveAtomic(pointer, out);
+
+        // older data files go once nothing maps them anymore, on windows that may only be a later compile
+        File[] old = dir.listFiles();
+        if (old != null) {
+            for (File f : old) {
+                if (f.getName().startsWith(out.getName() + "-") && !f.equals(data))
+                    f.delete();
+            }
+        }
+    }
+
+    private static void moveAtomic(File from, File to) throws IOException {
+        try {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        byte[] bytes = str.getBytes(Constants.CHARSET);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeInts(DataOutputStream out, int[] ints) throws IOException {
+        for (int i : ints)
+            out.writeInt(i);
+    }
+
+    private static String readString(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.getInt()];
+        buf.get(bytes);
+        return new String(bytes, Constants.CHARSET);
+    }
+
+    private static int[] readInts(ByteBuffer buf, int count) {
+        int[] ints = new int[count];
+        buf.asIntBuffer().get(ints);
+        buf.position(buf.position() + count * 4);
+        return ints;
+    }
+
+    /**
+     * @return the table for the CSV from the compiled file next to it, or null if there is none or it is stale
+     */
+    static Table readCompiled(File csv) {
+        File pointer = new File(csv.getParentFile(), BINARY_NAME);
+        if (!pointer.isFile())
+            return null;
+
+        try {
+            final File bin = new File(csv.getParentFile(), new String(Files.readAllBytes(pointer.toPath()), Constants.CHARSET).trim());
+            Binary binary = BINARIES.get(fingerprint(bin), new Callable<Binary>() {
+                @Override
+                public Binary call() throws Exception {
+                    return Binary.map(bin);
+                }
+            });
+            return binary.getTable(csv);
+        } catch (Exception e) {
+            // broken or from a different version, the CSVs still work.
+            return null;
+        }
+    }
+
+    /**
+     * A memory mapped compiled file. Tables are built on demand, their strings are decoded on demand.
+     */
+    private static final class Binary {
+        private final ByteBuffer buf;
+        private final String[] names;
+        private final long[] lengths;
+        private final long[] modified;
+        private final String[] hashes;
+        private final int[] sorted;
+        private final int[] irregular;
+        private final int[] dataStart;
+        private final StringTable strings;
+
+        private Binary(ByteBuffer buf) throws IOException {
+            this.buf = buf;
+
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION)
+                throw new IOException("Unsupported compiled mappings");
+
+            int count = buf.getInt();
+            names = new String[count];
+            lengths = new long[count];
+            modified = new long[count];
+            hashes = new String[count];
+            sorted = new int[count];
+            irregular = new int[count];
+            dataStart = new int[count];
+
+            for (int i = 0; i < count; i++) {
+                names[i] = readString(buf);
+                lengths[i] = buf.getLong();
+                modified[i] = buf.getLong();
+                hashes[i] = readString(buf);
+                sorted[i] = buf.getInt();
+                irregular[i] = buf.getInt();
+            }
+
+            int stringCount = buf.getInt();
+            int[] offsets = readInts(buf, stringCount + 1);
+            ByteBuffer data = buf.slice();
+            data.limit(offsets[stringCount]);
+            strings = new StringTable(new String[stringCount], data, offsets);
+            buf.position(buf.position() + offsets[stringCount]);
+
+            for (int i = 0; i < count; i++) {
+                dataStart[i] = buf.position();
+                buf.position(buf.position() + (sorted[i] * 5 + irregular[i] * 3) * 4);
+            }
+        }
+
+        static Binary map(File file) throws IOException {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                FileChannel channel = raf.getChannel();
+                MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                return new Binary(buf);
+            } finally {
+                // the mapping stays valid after the channel is closed
+                raf.close();
+            }
+        }
+
+        Table getTable(File csv) throws IOException {
+            for (int i = 0; i < names.length; i++) {
+                if (!names[i].equals(csv.getName()) || lengths[i] != csv.length())
+                    continue;
+
+                // modification time can change without the contents changing, so check the hash then.
+                if (modified[i] != csv.lastModified() && !hashes[i].equals(Constants.hash(csv)))
+                    return null;
+
+                ByteBuffer data = buf.duplicate();
+                data.position(dataStart[i]);
+                int n = sorted[i], m = irregular[i];
+                int[] ids = readInts(data, n);
+                int[] prefixes = readInts(data, n);
+                int[] suffixes = readInts(data, n);
+                int[] tNames = readInts(data, n + m);
+                int[] docs = readInts(data, n + m);
+                int[] keys = readInts(data, m);
+
+                Map<String, Integer> odd = Maps.newHashMapWithExpectedSize(m);
+                for (int j = 0; j < m; j++)
+                    odd.put(strings.get(keys[j]), n + j);
+
+                return new Table(ids, prefixes, suffixes, tNames, docs, keys, odd, strings);
+            }
+            return null;
+        }
+    }
+
+    // ----------------------------------
+    // lookup tables
+    // ----------------------------------
+
+    /**
+     * Finds the end of the numeric id in a name of the form prefix_1234_suffix.
+     *
+     * @return index of the underscore after the id, or -1 if the name is not of that form
+     */
+    private static int idEnd(String name) {
+        int start = name.indexOf('_') + 1;
+        if (start == 0)
+            return -1;
+
+        int i = start;
+        while (i < name.length() && name.charAt(i) >= '0' && name.charAt(i) <= '9')
+            i++;
+
+        // no digits, too many digits for an int, or no underscore after them
+        if (i == start || i - start > 9 || i >= name.length() || name.charAt(i) != '_')
+            return -1;
+        return i;
+    }
+
+    private static int parseId(String name, int end) {
+        int start = name.indexOf('_') + 1;
+        int id = 0;
+        for (int i = start; i < end; i++)
+            id = id * 10 + (name.charAt(i) - '0');
+        return id;
+    }
+
+    /**
+     * String pool of a table. Either filled up front, or decoded lazily from a compiled file.
+     */
+    static final class StringTable {
+        private final String[] strings;
+        private final ByteBuffer data;
+        private final int[] offsets;
+
+        StringTable(String[] strings, ByteBuffer data, int[] offsets) {
+            this.strings = strings;
+            this.data = data;
+            this.offsets = offsets;
+        }
+
+        String get(int index) {
+            if (index < 0)
+                return null;
+
+            String str = strings[index];
+            if (str == null) {
+                // racing threads decode the same string, which is harmless.
+                byte[] bytes = new byte[offsets[index + 1] - offsets[index]];
+                ByteBuffer dup = data.duplicate();
+                dup.position(offsets[index]);
+                dup.get(bytes);
+                str = STRINGS.intern(new String(bytes, Constants.CHARSET));
+                strings[index] = str;
+            }
+            return str;
+        }
+    }
+
+    static final class Table {
+        static final Table EMPTY = new Table(new int[0], new int[0], new int[0], new int[0], new int[0], new int[0], Collections.<String, Integer>emptyMap(), new StringTable(new String[0], null, null));
+
+        // parallel arrays, sorted by id. Names that dont look like prefix_id_suffix are in the irregular map.
+        final int[] ids;
+        final int[] prefixes;
+        final int[] suffixes;
+        final int[] names;
+        final int[] docs;
+        final int[] keys;
+        final Map<String, Integer> irregular;
+        final StringTable strings;
+
+        Table(int[] ids, int[] prefixes, int[] suffixes, int[] names, int[] docs, int[] keys, Map<String, Integer> irregular, StringTable strings) {
+            this.ids = ids;
+            this.prefixes = prefixes;
+            this.suffixes = suffixes;
+            this.names = names;
+            this.docs = docs;
+            this.keys = keys;
+            this.irregular = irregular;
+            this.strings = strings;
+        }
+
+        static Table read(File csv) throws IOException {
+            CSVReader reader = Constants.getReader(csv);
+            List<String[]> rows;
+            try {
+                rows = reader.readAll();
+            } finally {
+                reader.close();
+            }
+            return build(rows);
+        }
+
+        /**
+         * @param rows CSV rows of searge,name[,side[,desc]] without the header
+         */
+        static Table build(List<String[]> rows) {
+            List<String[]> regular = Lists.newArrayListWithCapacity(rows.size());
+            List<String[]> odd = Lists.newArrayList();
+            for (String[] row : rows) {
+                if (row.length < 2)
+                    continue;
+                (idEnd(row[0]) == -1 ? odd : regular).add(row);
+            }
+
+            Collections.sort(regular, new Comparator<String[]>() {
+                @Override
+                public int compare(String[] a, String[] b) {
+                    return Ints.compare(parseId(a[0], idEnd(a[0])), parseId(b[0], idEnd(b[0])));
+                }
+            });
+
+            int size = regular.size() + odd.size();
+            int[] ids = new int[regular.size()];
+            int[] prefixes = new int[regular.size()];
+            int[] suffixes = new int[regular.size()];
+            int[] names = new int[size];
+            int[] docs = new int[size];
+            int[] keys = new int[odd.size()];
+            Map<String, Integer> irregular = Maps.newHashMapWithExpectedSize(odd.size());
+            Pool pool = new Pool();
+
+            for (int i = 0; i < regular.size(); i++) {
+                String[] row = regular.get(i);
+                int end = idEnd(row[0]);
+                ids[i] = parseId(row[0], end);
+                prefixes[i] = pool.add(row[0].substring(0, row[0].indexOf('_') + 1));
+                suffixes[i] = pool.add(row[0].substring(end + 1));
+                names[i] = pool.add(row[1]);
+                docs[i] = row.length > 3 && !row[3].isEmpty() ? pool.add(row[3]) : -1;
+            }
+
+            for (int i = 0; i < odd.size(); i++) {
+                String[] row = odd.get(i);
+                int index = regular.size() + i;
+                names[index] = pool.add(row[1]);
+                docs[index] = row.length > 3 && !row[3].isEmpty() ? pool.add(row[3]) : -1;
+                keys[i] = pool.add(row[0]);
+                irregular.put(STRINGS.intern(row[0]), index);
+            }
+
+            return new Table(ids, prefixes, suffixes, names, docs, keys, irregular, pool.build());
+        }
+
+        int indexOf(String srg) {
+            int end = idEnd(srg);
+            if (end == -1) {
+                Integer index = irregular.get(srg);
+                return index == null ? -1 : index;
+            }
+
+            int id = parseId(srg, end);
+            int i = Arrays.binarySearch(ids, id);
+            if (i < 0)
+                return -1;
+
+            // ids are almost always unique, but step back to the first one just in case
+            while (i > 0 && ids[i - 1] == id)
+                i--;
+
+            for (; i < ids.length && ids[i] == id; i++) {
+                String suffix = strings.get(suffixes[i]);
+                if (srg.startsWith(strings.get(prefixes[i])) &&
+                        srg.length() == end + 1 + suffix.length() &&
+                        srg.regionMatches(end + 1, suffix, 0, suffix.length())) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        String getName(String srg) {
+            int i = indexOf(srg);
+            return i == -1 ? null : strings.get(names[i]);
+        }
+
+        String getDoc(String srg) {
+            int i = indexOf(srg);
+            return i == -1 ? null : strings.get(docs[i]);
+        }
+    }
+
+    /**
+     * Dedupes strings while a table is built.
+     */
+    private static final class Pool {
+        private final Map<String, Integer> index = Maps.newHashMap();
+        private final List<String> strings = Lists.newArrayList();
+
+        int add(String str) {
+            Integer idx = index.get(str);
+            if (idx == null) {
+                idx = strings.size();
+                str = STRINGS.intern(str);
+                index.put(str, idx);
+                strings.add(str);
+            }
+            return idx;
+        }
+
+        StringTable build() {
+            return new StringTable(strings.toArray(new String[0]), null, null);
+        }
+    }
+}
@@ -20,18 +20,23 @@
 package net.minecraftforge.gradle.util.mcp;
 
 import com.google.common.base.Joiner;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
 import com.google.common.io.LineProcessor;
 import de.oceanlabs.mcp.mcinjector.StringUtil;
+import net.minecraftforge.gradle.common.Constants;
 import org.objectweb.asm.*;
 
 import java.io.*;
 import java.nio.charset.Charset;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
@@ -40,6 +45,8 @@ import java.util.zip.ZipInputStream;
 import static org.objectweb.asm.Opcodes.*;
 
 public class ReobfExceptor {
+    private static final Cache<String, JarInfo> DEOBF_INFO = CacheBuilder.newBuilder().maximumSize(2).softValues().build();
+
     // info supplied.
     public File toReobfJar;
     public File deobfJar;
@@ -71,8 +78,8 @@ public class ReobfExceptor {
      * @throws IOException because it reads the srg and jar files
      */
     public void doFirstThings() throws IOException {
-        Map<String, String> csvData = readCSVs();
-        JarInfo oldInfo = readJar(deobfJar);
+        McpMappings csvData = readCSVs();
+        JarInfo oldInfo = readDeobfJar(deobfJar).copy(); // renamed and merged below, so the cached one is left alone
         JarInfo newInfo = readJar(toReobfJar);
 
         clsMap = createClassMap(newInfo.map, newInfo.interfaces);
@@ -82,47 +89,34 @@ public class ReobfExceptor {
 
     // Preliminary things here
 
-    private Map<String, String> readCSVs() throws IOException {
-        final Map<String, String> csvData = Maps.newHashMap();
-        File[] csvs = new File[]
-                {
-                        fieldCSV == null ? null : fieldCSV,
-                        methodCSV == null ? null : methodCSV
-                };
-
-        for (File f : csvs) {
-            if (f == null) continue;
-
-            Files.asCharSource(f, Charset.defaultCharset()).readLines(new LineProcessor<Object>() {
-                @Override
-                public boolean processLine(String line) {
-                    String[] s = line.split(",");
-                    csvData.put(s[0], s[1]);
-                    return true;
-                }
-
-                @Override
-                public Object getResult() {
-                    return null;
-                }
-            });
-        }
-
-        return csvData;
+    private McpMappings readCSVs() throws IOException {
+        return McpMappings.load(methodCSV, fieldCSV);
     }
 
     // ACTUAL things here...
 
-    private void renameAccess(Map<String, AccessInfo> data, Map<String, String> csvData) {
+    private void renameAccess(Map<String, AccessInfo> data, McpMappings csvData) {
         for (AccessInfo info : data.values()) {
             for (Insn i : info.insns) {
-                String tmp = csvData.get(i.name);
-                i.name = tmp == null ? i.name : tmp;
+                i.name = csvData.remap(i.name);
             }
         }
     }
 
-    private JarInfo readJar(File inJar) throws IOException {
+    /**
+     * The deobf jar rarely changes between builds, so its analysis is kept for the daemon, keyed by the jar's path, size and timestamp.
+     */
+    private static JarInfo readDeobfJar(final File inJar) throws IOException {
+        try {
+            return DEOBF_INFO.get(Constants.hash(inJar.getAbsolutePath() + "|" + inJar.length() + "|" + inJar.lastModified()), () -> readJar(inJar));
+        } catch (ExecutionException e) {
+            Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static JarInfo readJar(File inJar) throws IOException {
         ZipInputStream zip = null;
         try {
             try {
@@ -137,7 +131,10 @@ public class ReobfExceptor {
                 if (entry == null) break;
                 if (entry.isDirectory() ||
                         !entry.getName().endsWith(".class")) continue;
-                (new ClassReader(ByteStreams.toByteArray(zip))).accept(reader, 0);
+                // only the access$ methods of minecraft classes need their code read
+                int flags = ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES;
+                if (!entry.getName().startsWith("net/minecraft/")) flags |= ClassReader.SKIP_CODE;
+                (new ClassReader(ByteStreams.toByteArray(zip))).accept(reader, flags);
             }
             return reader;
         } finally {
@@ -299,6 +296,15 @@ public class ReobfExceptor {
             super(Opcodes.ASM4, null);
         }
 
+        public JarInfo copy() {
+            JarInfo copy = new JarInfo();
+            copy.map.putAll(map);
+            copy.interfaces.addAll(interfaces);
+            for (Entry<String, AccessInfo> e : access.entrySet())
+                copy.access.put(e.getKey(), e.getValue().copy());
+            return copy;
+        }
+
         @Override
         public void visit(int version, int access, String name, String signature, String superName, String[] ints) {
             //System.out.println("Class: " + name);
@@ -367,6 +373,14 @@ public class ReobfExceptor {
             cache = null;
         }
 
+        public AccessInfo copy() {
+            AccessInfo copy = new AccessInfo(owner, name, desc);
+            copy.access = access;
+            for (Insn i : insns)
+                copy.add(i.opcode, i.owner, i.name, i.desc);
+            return copy;
+        }
+
 
         @Override
         public String toString() {
@@ -0,0 +1,47 @@
+/*
+ * A Gradle plugin for the creation of Minecraft mods and MinecraftForge plugins.
+ * Copyright (C) 2013 Minecraft Forge
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package net.minecraftforge.gradle.util.patching;
+
+import java.util.List;
+
+import com.cloudbees.diff.Diff;
+
+/**
+ * Backends for line diffs. Both produce a diff4j {@link Diff}, so the unified diff text is
+ * formatted the same way no matter which one computed it.
+ */
+public enum DiffAlgorithm {
+    /** diff4j's own Hunt-McIlroy implementation. */
+    DIFF4J {
+        @Override
+        public Diff diff(List<String> first, List<String> second) {
+            return Diff.diff(first, second, false);
+        }
+    },
+    /** Linear space Myers, see {@link MyersDiff}. */
+    MYERS {
+        @Override
+        public Diff diff(List<String> first, List<String> second) {
+            return MyersDiff.diff(first, second);
+        }
+    };
+
+    public abstract Diff diff(List<String> first, List<String> second);
+}
@@ -0,0 +1,182 @@
+/*
+ * A Gradle plugin for the creation of Minecraft mods and MinecraftForge plugins.
+ * Copyright (C) 2013 Minecraft Forge
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package net.minecraftforge.gradle.util.patching;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.cloudbees.diff.Diff;
+import com.cloudbees.diff.Difference;
+
+/**
+ * Linear space Myers diff over lines. Every distinct line is interned to an int first, so the
+ * search itself only compares ints. The result is a diff4j {@link Diff}, so the unified output
+ * comes from the exact same formatter either way.
+ */
+public class MyersDiff {
+    private final int[] a;
+    private final int[] b;
+    private final boolean[] changedA;
+    private final boolean[] changedB;
+    private final int[] vf;
+    private final int[] vb;
+    private final int offset;
+
+    private MyersDiff(int[] a, int[] b) {
+        this.a = a;
+        this.b = b;
+        this.changedA = new boolean[a.length];
+        this.changedB = new boolean[b.length];
+
+        int max = (a.length + b.length + 1) / 2 + 1;
+        this.offset = max;
+        this.vf = new int[2 * max + 2];
+        this.vb = new int[2 * max + 2];
+    }
+
+    public static Diff diff(List<String> first, List<String> second) {
+        Map<String, Integer> ids = new HashMap<>(first.size() + second.size());
+        MyersDiff myers = new MyersDiff(intern(first, ids), intern(second, ids));
+        myers.compare(0, first.size(), 0, second.size());
+        return myers.toDiff();
+    }
+
+    private static int[] intern(List<String> lines, Map<String, Integer> ids) {
+        int[] out = new int[lines.size()];
+        for (int i = 0; i < out.length; i++) {
+            Integer id = ids.get(lines.get(i));
+            if (id == null) {
+                id = ids.size();
+                ids.put(lines.get(i), id);
+            }
+            out[i] = id;
+        }
+        return out;
+    }
+
+    private void compare(int aLo, int aHi, int bLo, int bHi) {
+        // common prefix and suffix are never part of the diff
+        while (aLo < aHi && bLo < bHi && a[aLo] == b[bLo]) {
+            aLo++;
+            bLo++;
+        }
+        while (aLo < aHi && bLo < bHi && a[aHi - 1] == b[bHi - 1]) {
+            aHi--;
+            bHi--;
+        }
+
+        if (aLo == aHi) {
+            for (int j = bLo; j < bHi; j++)
+                changedB[j] = true;
+        } else if (bLo == bHi) {
+            for (int i = aLo; i < aHi; i++)
+                changedA[i] = true;
+        } else {
+            int[] snake = middleSnake(aLo, aHi, bLo, bHi);
+            compare(aLo, aLo + snake[0], bLo, bLo + snake[1]);
+            compare(aLo + snake[2], aHi, bLo + snake[3], bHi);
+        }
+    }
+
+    /**
+     * @return start x, start y, end x, end y of the middle snake, relative to aLo and bLo
+     */
+    private int[] middleSnake(int aLo, int aHi, int bLo, int bHi) {
+        int n = aHi - aLo;
+        int m = bHi - bLo;
+        int delta = n - m;
+        boolean odd = (delta & 1) != 0;
+        int max = (n + m + 1) / 2;
+
+        vf[offset + 1] = 0;
+        vb[offset + 1] = 0;
+
+        for (int d = 0; d <= max; d++) {
+            for (int k = -d; k <= d; k += 2) {
+                int x = (k == -d || (k != d && vf[offset + k - 1] < vf[offset + k + 1])) ? vf[offset + k + 1] : vf[offset + k - 1] + 1;
+                int y = x - k;
+                int x0 = x;
+                int y0 = y;
+                while (x < n && y < m && a[aLo + x] == b[bLo + y]) {
+                    x++;
+                    y++;
+                }
+                vf[offset + k] = x;
+
+                int rk = delta - k;
+                if (odd && rk >= -(d - 1) && rk <= d - 1 && x + vb[offset + rk] >= n)
+                    return new int[] { x0, y0, x, y };
+            }
+
+            for (int k = -d; k <= d; k += 2) {
+                int x = (k == -d || (k != d && vb[offset + k - 1] < vb[offset + k + 1])) ? vb[offset + k + 1] : vb[offset + k - 1] + 1;
+                int y = x - k;
+                int x0 = x;
+                int y0 = y;
+                while (x < n && y < m && a[aHi - x - 1] == b[bHi - y - 1]) {
+                    x++;
+                    y++;
+                }
+                vb[offset + k] = x;
+
+                int fk = delta - k;
+                if (!odd && fk >= -d && fk <= d && x + vf[offset + fk] >= n)
+                    return new int[] { n - x, m - y, n - x0, m - y0 };
+            }
+        }
+
+        throw new IllegalStateException("No middle snake found");
+    }
+
+    private Diff toDiff() {
+        Diff diff = new Diff();
+        int i = 0;
+        int j = 0;
+
+        while (i < a.length || j < b.length) {
+            if (i < a.length && j < b.length && !changedA[i] && !changedB[j]) {
+                i++;
+                j++;
+                continue;
+            }
+
+            int i2 = i;
+            int j2 = j;
+            while (i2 < a.length && changedA[i2])
+                i2++;
+            while (j2 < b.length && changedB[j2])
+                j2++;
+
+            // diff4j line numbers are 1 based, and the "start" of an empty side is the line before it
+            if (i2 > i && j2 > j)
+                diff.add(new Difference(Difference.CHANGE, i + 1, i2, j + 1, j2));
+            else if (i2 > i)
+                diff.add(new Difference(Difference.DELETE, i + 1, i2, j, 0));
+            else
+                diff.add(new Difference(Difference.ADD, i, 0, j + 1, j2));
+
+            i = i2;
+            j = j2;
+        }
+
+        return diff;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * A Gradle plugin for the creation of Minecraft mods and MinecraftForge plugins.
+ * Copyright (C) 2013 Minecraft Forge
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package net.minecraftforge.gradle.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarInputStream;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Prints the size and encode/decode time of every {@link BinPatchFormat} for a set of class files standing in for
+ * the patches. Not part of the test suite, run it by hand:
+ * <pre>
+ * BinPatchFormatBenchmark [jar] [count]
+ * </pre>
+ * The classes come from the given jar, or the one Guava was loaded from, and default to the first 250.
+ * Measuring {@link BinPatchFormat#PACK200_LZMA} needs a JDK that still ships Pack200, it is reported as unavailable
+ * otherwise.
+ */
+public class BinPatchFormatBenchmark {
+    public static void main(String[] args) throws Exception {
+        File source = args.length > 0 ? new File(args[0]) : new File(ByteStreams.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 250;
+
+        Map<String, byte[]> patches = Maps.newLinkedHashMap();
+        try (JarFile jar = new JarFile(source)) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements() && patches.size() < count) {
+                JarEntry entry = entries.nextElement();
+                if (entry.getName().endsWith(".class")) {
+                    try (InputStream in = jar.getInputStream(entry)) {
+                        patches.put(entry.getName() + ".binpatch", ByteStreams.toByteArray(in));
+                    }
+                }
+            }
+        }
+
+        System.out.println(String.format("%d patches from %s", patches.size(), source.getName()));
+        System.out.println(String.format("%-14s %12s %12s %12s", "format", "bytes", "encode ms", "decode ms"));
+        for (BinPatchFormat format : BinPatchFormat.values()) {
+            byte[] jar = createJar(patches, format.isStoreEntries());
+            byte[] encoded;
+            long encode = System.nanoTime();
+            try {
+                encoded = format.encode(jar);
+            } catch (LinkageError e) {
+                System.out.println(String.format("%-14s %12s", format, "unavailable"));
+                continue;
+            }
+            encode = System.nanoTime() - encode;
+
+            int read = 0;
+            long decode = System.nanoTime();
+            InputStream decoded = BinPatchFormat.decode(new ByteArrayInputStream(encoded));
+            try (JarInputStream jis = new JarInputStream(decoded)) {
+                JarEntry entry;
+                while ((entry = jis.getNextJarEntry()) != null) {
+                    if (!Arrays.equals(patches.get(entry.getName()), ByteStreams.toByteArray(jis)))
+                        throw new IllegalStateException(format + " changed " + entry.getName());
+                    read++;
+                }
+                // the central directory, the LZMA decoder fails if it is closed before it is done
+                ByteStreams.exhaust(decoded);
+            }
+            decode = System.nanoTime() - decode;
+
+            if (read != patches.size())
+                throw new IllegalStateException(format + " lost entries, read " + read + " of " + patches.size());
+            System.out.println(String.format("%-14s %12d %12d %12d", format, encoded.length, encode / 1000000, decode / 1000000));
+        }
+    }
+
+    private static byte[] createJar(Map<String, byte[]> files, boolean store) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CRC32 crc = new CRC32();
+        try (JarOutputStream jar = new JarOutputStream(out)) {
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                JarEntry entry = new JarEntry(file.getKey());
+                if (store) {
+                    crc.reset();
+                    crc.update(file.getValue());
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(file.getValue().length);
+                    entry.setCrc(crc.getValue());
+                }
+                jar.putNextEntry(entry);
+                jar.write(file.getValue());
+            }
+        }
+        return out.toByteArray();
+    }
+}
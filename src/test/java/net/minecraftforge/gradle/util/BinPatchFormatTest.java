@@ -0,0 +1,77 @@
+/*
+ * A Gradle plugin for the creation of Minecraft mods and MinecraftForge plugins.
+ * Copyright (C) 2013 Minecraft Forge
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package net.minecraftforge.gradle.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+
+public class BinPatchFormatTest {
+    private static byte[] createJar() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JarOutputStream jar = new JarOutputStream(out)) {
+            jar.putNextEntry(new JarEntry("binpatch/merged/net.minecraft.Foo.binpatch"));
+            jar.write("foo patch".getBytes(Charsets.UTF_8));
+            jar.putNextEntry(new JarEntry("binpatch/merged/net.minecraft.Bar.binpatch"));
+            jar.write("bar patch".getBytes(Charsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static void checkRoundTrip(BinPatchFormat format) throws IOException {
+        byte[] encoded = format.encode(createJar());
+
+        try (JarInputStream jis = new JarInputStream(BinPatchFormat.decode(new ByteArrayInputStream(encoded)))) {
+            JarEntry entry = jis.getNextJarEntry();
+            Assert.assertEquals("binpatch/merged/net.minecraft.Foo.binpatch", entry.getName());
+            Assert.assertEquals("foo patch", new String(ByteStreams.toByteArray(jis), Charsets.UTF_8));
+
+            entry = jis.getNextJarEntry();
+            Assert.assertEquals("binpatch/merged/net.minecraft.Bar.binpatch", entry.getName());
+            Assert.assertEquals("bar patch", new String(ByteStreams.toByteArray(jis), Charsets.UTF_8));
+
+            Assert.assertNull(jis.getNextJarEntry());
+        }
+    }
+
+    @Test
+    public void testJar() throws IOException {
+        checkRoundTrip(BinPatchFormat.JAR);
+    }
+
+    @Test
+    public void testJarLzma() throws IOException {
+        checkRoundTrip(BinPatchFormat.JAR_LZMA);
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownFormat() throws IOException {
+        BinPatchFormat.decode(new ByteArrayInputStream(new byte[] { 'F', 'G', 'B', 'P', 100 }));
+    }
+}
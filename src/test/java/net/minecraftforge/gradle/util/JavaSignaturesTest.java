@@ -0,0 +1,52 @@
+/*
+ * A Gradle plugin for the creation of Minecraft mods and MinecraftForge plugins.
+ * Copyright (C) 2013 Minecraft Forge
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package net.minecraftforge.gradle.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JavaSignaturesTest {
+    private static final String SOURCE = "package a;\n"
+            + "import b.C;\n"
+            + "/** Doc { */\n"
+            + "public class X extends C {\n"
+            + "    private Runnable r = new Runnable() { public void run() { go(); } };\n"
+            + "    static { init(\"}\"); }\n"
+            + "    public int get(int x) {\n"
+            + "        return x + '{';\n"
+            + "    }\n"
+            + "    class Inner { void m() { if (true) { } } }\n"
+            + "}\n";
+
+    @Test
+    public void testStrip() {
+        Assert.assertEquals("package a; import b.C; public class X extends C { private Runnable r = new Runnable() {}; static {} "
+                + "public int get(int x) {} class Inner { void m() {} } }", JavaSignatures.strip(SOURCE));
+    }
+
+    @Test
+    public void testBodyChanges() {
+        String body = SOURCE.replace("return x + '{';", "// changed\n        return x * 2;");
+        Assert.assertEquals(JavaSignatures.strip(SOURCE), JavaSignatures.strip(body));
+
+        String signature = SOURCE.replace("public int get(int x)", "public long get(int x)");
+        Assert.assertNotEquals(JavaSignatures.strip(SOURCE), JavaSignatures.strip(signature));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * A Gradle plugin for the creation of Minecraft mods and MinecraftForge plugins.
+ * Copyright (C) 2013 Minecraft Forge
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package net.minecraftforge.gradle.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+
+public class RawZipOutputTest {
+    private File dir;
+    private File input;
+
+    @Before
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("rawzip").toFile();
+        input = new File(dir, "in.jar");
+
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(input.toPath()))) {
+            out.putNextEntry(new ZipEntry("a/"));
+
+            ZipEntry deflated = new ZipEntry("a/Deflated.class");
+            deflated.setTime(1400000000000L);
+            out.putNextEntry(deflated);
+            out.write(bytes("deflated deflated deflated deflated"));
+
+            byte[] data = bytes("stored");
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            ZipEntry stored = new ZipEntry("a/Stored.class");
+            stored.setMethod(ZipEntry.STORED);
+            stored.setSize(data.length);
+            stored.setCrc(crc.getValue());
+            out.putNextEntry(stored);
+            out.write(data);
+
+            out.putNextEntry(new ZipEntry("a/Changed.class"));
+            out.write(bytes("old"));
+        }
+    }
+
+    @After
+    public void cleanup() {
+        for (File f : dir.listFiles())
+            f.delete();
+        dir.delete();
+    }
+
+    private static byte[] bytes(String str) {
+        return str.getBytes(Charsets.UTF_8);
+    }
+
+    @Test
+    public void testCopy() throws IOException {
+        File output = new File(dir, "out.jar");
+
+        try (ZipIndex index = new ZipIndex(input); RawZipOutput out = new RawZipOutput(output)) {
+            Assert.assertEquals(4, index.getEntries().size());
+            Assert.assertArrayEquals(bytes("deflated deflated deflated deflated"), index.read(index.getEntry("a/Deflated.class")));
+
+            for (ZipIndex.Entry e : index.getEntries()) {
+                if (e.isDirectory())
+                    out.putDirectory(e.getName(), e.getTime());
+                else if (e.getName().equals("a/Changed.class"))
+                    out.putEntry(e.getName(), e.getTime(), bytes("new"));
+                else
+                    out.copy(index, e);
+            }
+
+            Assert.assertTrue(out.contains("a/Stored.class"));
+        }
+
+        try (ZipFile zip = new ZipFile(output)) {
+            Assert.assertTrue(zip.getEntry("a/").isDirectory());
+            Assert.assertArrayEquals(bytes("deflated deflated deflated deflated"), ByteStreams.toByteArray(zip.getInputStream(zip.getEntry("a/Deflated.class"))));
+            Assert.assertEquals(ZipEntry.STORED, zip.getEntry("a/Stored.class").getMethod());
+            Assert.assertArrayEquals(bytes("stored"), ByteStreams.toByteArray(zip.getInputStream(zip.getEntry("a/Stored.class"))));
+            Assert.assertArrayEquals(bytes("new"), ByteStreams.toByteArray(zip.getInputStream(zip.getEntry("a/Changed.class"))));
+            Assert.assertEquals(1400000000000L, zip.getEntry("a/Deflated.class").getTime());
+        }
+    }
+
+    @Test(expected = ZipException.class)
+    public void testDuplicate() throws IOException {
+        try (RawZipOutput out = new RawZipOutput(new File(dir, "dupe.jar"))) {
+            out.putEntry("a.txt", 0, bytes("a"));
+            out.putEntry("a.txt", 0, bytes("b"));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * A Gradle plugin for the creation of Minecraft mods and MinecraftForge plugins.
+ * Copyright (C) 2013 Minecraft Forge
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package net.minecraftforge.gradle.util.mcp;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+public class McpMappingsTest {
+    private File dir;
+    private File methods;
+    private File fields;
+    private File params;
+
+    @Before
+    public void setup() throws IOException {
+        dir = java.nio.file.Files.createTempDirectory("mappings").toFile();
+
+        methods = new File(dir, "methods.csv");
+        Files.asCharSink(methods, Charsets.UTF_8).write(
+                "searge,name,side,desc\n" +
+                "func_100011_g,isEmpty,0,Returns true if empty\n" +
+                "func_100012_b,setTicks,2,\n" +
+                "func_100012_c,getTicks,2,\n" +
+                "func_99_a,tick,2,\n");
+
+        fields = new File(dir, "fields.csv");
+        Files.asCharSink(fields, Charsets.UTF_8).write(
+                "searge,name,side,desc\n" +
+                "field_100013_f,isPotionDurationMax,0,\"Doc, with a comma\"\n");
+
+        params = new File(dir, "params.csv");
+        Files.asCharSink(params, Charsets.UTF_8).write(
+                "param,name,side\n" +
+                "p_100011_1_,stack,0\n" +
+                "p_i1234_1_,world,0\n");
+    }
+
+    @After
+    public void cleanup() {
+        for (File f : dir.listFiles())
+            f.delete();
+        dir.delete();
+    }
+
+    @Test
+    public void testLookups() throws IOException {
+        McpMappings mappings = McpMappings.load(methods, fields, params);
+
+        Assert.assertEquals("isEmpty", mappings.getMethod("func_100011_g"));
+        Assert.assertEquals("Returns true if empty", mappings.getMethodDoc("func_100011_g"));
+        Assert.assertEquals("tick", mappings.getMethod("func_99_a"));
+        Assert.assertNull(mappings.getMethodDoc("func_99_a"));
+
+        // same id, different suffix
+        Assert.assertEquals("setTicks", mappings.getMethod("func_100012_b"));
+        Assert.assertEquals("getTicks", mappings.getMethod("func_100012_c"));
+        Assert.assertNull(mappings.getMethod("func_100012_d"));
+        Assert.assertNull(mappings.getMethod("func_100012_"));
+
+        Assert.assertEquals("isPotionDurationMax", mappings.getField("field_100013_f"));
+        Assert.assertEquals("Doc, with a comma", mappings.getFieldDoc("field_100013_f"));
+
+        Assert.assertEquals("stack", mappings.getParam("p_100011_1_"));
+        Assert.assertEquals("world", mappings.getParam("p_i1234_1_"));
+
+        // prefix picks the table
+        Assert.assertEquals("isEmpty", mappings.get("func_100011_g"));
+        Assert.assertNull(mappings.get("field_100011_g"));
+        Assert.assertEquals("notMapped", mappings.remap("notMapped"));
+    }
+
+    @Test
+    public void testShared() throws IOException {
+        McpMappings first = McpMappings.load(methods, fields);
+        McpMappings second = McpMappings.load(methods, fields, null);
+        Assert.assertSame(first.getMethod("func_100011_g"), second.getMethod("func_100011_g"));
+
+        // changing the file changes the fingerprint
+        Files.asCharSink(methods, Charsets.UTF_8).write("searge,name,side,desc\nfunc_100011_g,isAir,0,\n");
+        methods.setLastModified(methods.lastModified() + 2000);
+        Assert.assertEquals("isAir", McpMappings.load(methods, fields).getMethod("func_100011_g"));
+    }
+
+    @Test
+    public void testCompiled() throws IOException {
+        McpMappings.compile(new File(dir, McpMappings.BINARY_NAME), methods, fields, params);
+
+        McpMappings.Table table = McpMappings.readCompiled(methods);
+        Assert.assertNotNull(table);
+        Assert.assertEquals("getTicks", table.getName("func_100012_c"));
+        Assert.assertEquals("Returns true if empty", table.getDoc("func_100011_g"));
+        Assert.assertEquals("world", McpMappings.readCompiled(params).getName("p_i1234_1_"));
+
+        McpMappings mappings = McpMappings.load(methods, fields, params);
+        Assert.assertEquals("isPotionDurationMax", mappings.getField("field_100013_f"));
+        Assert.assertEquals("Doc, with a comma", mappings.getFieldDoc("field_100013_f"));
+        Assert.assertEquals("stack", mappings.getParam("p_100011_1_"));
+
+        // stale once the CSV changes
+        Files.asCharSink(fields, Charsets.UTF_8).write("searge,name,side,desc\nfield_100013_f,maxDuration,0,\n");
+        Assert.assertNull(McpMappings.readCompiled(fields));
+        Assert.assertEquals("maxDuration", McpMappings.load(methods, fields).getField("field_100013_f"));
+
+        // compiling again writes a new data file instead of replacing the mapped one
+        File pointer = new File(dir, McpMappings.BINARY_NAME);
+        String first = Files.asCharSource(pointer, Charsets.UTF_8).read();
+        McpMappings.compile(pointer, methods, fields, params);
+        Assert.assertNotEquals(first, Files.asCharSource(pointer, Charsets.UTF_8).read());
+        Assert.assertEquals("maxDuration", McpMappings.readCompiled(fields).getName("field_100013_f"));
+        Assert.assertEquals("getTicks", McpMappings.readCompiled(methods).getName("func_100012_c"));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * A Gradle plugin for the creation of Minecraft mods and MinecraftForge plugins.
+ * Copyright (C) 2013 Minecraft Forge
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package net.minecraftforge.gradle.util.patching;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.cloudbees.diff.Diff;
+import com.cloudbees.diff.Difference;
+
+public class MyersDiffTest {
+    private static void check(String first, String second) throws IOException {
+        List<String> a = Arrays.asList(first.isEmpty() ? new String[0] : first.split("\n"));
+        List<String> b = Arrays.asList(second.isEmpty() ? new String[0] : second.split("\n"));
+
+        Diff expected = Diff.diff(a, b, false);
+        Diff actual = MyersDiff.diff(a, b);
+
+        Assert.assertEquals(expected.toString(), actual.toString());
+        Assert.assertEquals(
+                expected.toUnifiedDiff("a", "b", new StringReader(first), new StringReader(second), 3),
+                actual.toUnifiedDiff("a", "b", new StringReader(first), new StringReader(second), 3));
+    }
+
+    @Test
+    public void testSameAsDiff4j() throws IOException {
+        check("a\nb\nc\n", "a\nb\nc\n");
+        check("a\nb\nc\n", "a\nc\n");
+        check("a\nc\n", "a\nb\nc\n");
+        check("a\nb\nc\n", "a\nX\nc\n");
+        check("", "a\n");
+        check("a\n", "");
+        check("a\nb\nc\nd\n", "X\nb\nc\nY\nZ\n");
+        check("1\n2\n3\n4\n5\n6\n7\n8\n9\n10\n11\n12\n", "1\n2\nX\n4\n5\n6\n7\n8\n9\n10\nY\n12\n13\n");
+    }
+
+    @Test
+    public void testMinimal() {
+        List<String> a = Arrays.asList("a", "b", "c", "a", "b", "b", "a");
+        List<String> b = Arrays.asList("c", "b", "a", "b", "a", "c");
+
+        int changed = 0;
+        for (Difference d : MyersDiff.diff(a, b)) {
+            if (d.getType() != Difference.ADD)
+                changed += d.getFirstEnd() - d.getFirstStart() + 1;
+            if (d.getType() != Difference.DELETE)
+                changed += d.getSecondEnd() - d.getSecondStart() + 1;
+        }
+
+        // the classic example from the paper, D = 5
+        Assert.assertEquals(5, changed);
+    }
+}